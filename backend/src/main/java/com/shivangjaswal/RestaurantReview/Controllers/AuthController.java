@@ -3,10 +3,12 @@ package com.shivangjaswal.RestaurantReview.Controllers;
 import com.shivangjaswal.RestaurantReview.Dto.AuthResponseDTO;
 import com.shivangjaswal.RestaurantReview.Dto.LoginRequestDTO;
 import com.shivangjaswal.RestaurantReview.Dto.RegisterRequestDTO;
+import com.shivangjaswal.RestaurantReview.Security.UserPrincipal;
 import com.shivangjaswal.RestaurantReview.Service.AuthService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
 import javax.validation.Valid;
@@ -41,6 +43,28 @@ public class AuthController {
         }
     }
 
+    // Log out everywhere: every token issued to the current user so far stops working, this one included
+    @PostMapping("/logout-all")
+    public ResponseEntity<Void> logoutAll(@AuthenticationPrincipal UserPrincipal currentUser) {
+        try {
+            authService.revokeTokens(currentUser.getId());
+            return ResponseEntity.status(HttpStatus.NO_CONTENT).build();
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+    }
+
+    // End every session of a user, say a compromised account (admin only)
+    @PostMapping("/users/{userId}/revoke-tokens")
+    public ResponseEntity<Void> revokeTokens(@PathVariable String userId) {
+        try {
+            authService.revokeTokens(userId);
+            return ResponseEntity.status(HttpStatus.NO_CONTENT).build();
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+    }
+
     // Helper class for error messages
     public static class MessageResponse {
         private String message;
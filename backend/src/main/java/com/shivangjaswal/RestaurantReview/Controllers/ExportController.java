@@ -0,0 +1,60 @@
+package com.shivangjaswal.RestaurantReview.Controllers;
+
+import com.shivangjaswal.RestaurantReview.Service.ExportService;
+import com.shivangjaswal.RestaurantReview.Service.ExportService.Format;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.nio.charset.StandardCharsets;
+
+@RestController
+@RequestMapping("/api/export")
+@CrossOrigin(origins = "http://localhost:3000")
+@RequiredArgsConstructor
+public class ExportController {
+
+    private final ExportService exportService;
+
+    @Value("${app.export.timeout-ms:3600000}")
+    private long exportTimeoutMs;
+
+    // Stream the whole catalog (admin only): ?format=ndjson|csv, &reviews=true to include every review,
+    // &gzip=true to compress the response
+    @GetMapping("/restaurants")
+    public ResponseEntity<StreamingResponseBody> exportRestaurants(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(defaultValue = "false") boolean reviews,
+            @RequestParam(defaultValue = "false") boolean gzip,
+            HttpServletRequest request) {
+        Format exportFormat;
+        try {
+            exportFormat = Format.parse(format);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+
+        // Runs after the handler returns, writing straight to the response as the cursors are read. Its async
+        // timeout is raised for this request alone, the default still applies to every other async request.
+        WebAsyncUtils.getAsyncManager(request).getAsyncWebRequest().setTimeout(exportTimeoutMs);
+        StreamingResponseBody body = out -> exportService.exportRestaurants(out, exportFormat, reviews, gzip);
+
+        String extension = exportFormat == Format.NDJSON ? "ndjson" : "csv";
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(exportFormat == Format.NDJSON
+                        ? MediaType.parseMediaType("application/x-ndjson")
+                        : new MediaType("text", "csv", StandardCharsets.UTF_8))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"restaurants." + extension + "\"");
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+}
@@ -0,0 +1,31 @@
+package com.shivangjaswal.RestaurantReview.Controllers;
+
+import com.shivangjaswal.RestaurantReview.Dto.ImportReportDTO;
+import com.shivangjaswal.RestaurantReview.Service.BulkImportService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+@RestController
+@RequestMapping("/api/import")
+@CrossOrigin(origins = "http://localhost:3000")
+@RequiredArgsConstructor
+public class ImportController {
+
+    private final BulkImportService bulkImportService;
+
+    // Stream an NDJSON file of restaurants and reviews (admin only); see BulkImportService for the line format.
+    // Bad lines are skipped and listed in the report, so a partly bad file still returns 200.
+    @PostMapping(consumes = {"application/x-ndjson", "application/json", "text/plain"})
+    public ResponseEntity<ImportReportDTO> importNdjson(InputStream body) {
+        try {
+            return ResponseEntity.ok(bulkImportService.importNdjson(body));
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+    }
+}
@@ -2,10 +2,18 @@ package com.shivangjaswal.RestaurantReview.Controllers;
 
 
 import com.shivangjaswal.RestaurantReview.Dto.CreateRestaurantDTO;
+import com.shivangjaswal.RestaurantReview.Dto.FacetsDTO;
+import com.shivangjaswal.RestaurantReview.Dto.NearbyRestaurantDTO;
+import com.shivangjaswal.RestaurantReview.Dto.PageResponseDTO;
 import com.shivangjaswal.RestaurantReview.Dto.UpdateRestaurantDTO;
 import com.shivangjaswal.RestaurantReview.Dto.RestaurantDTO;
+import com.shivangjaswal.RestaurantReview.Dto.SuggestionDTO;
 import com.shivangjaswal.RestaurantReview.Service.RestaurantService;
+import com.shivangjaswal.RestaurantReview.Service.SerializedView;
+import com.shivangjaswal.RestaurantReview.Utils.ETags;
+import com.shivangjaswal.RestaurantReview.Utils.StaleResponses;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -14,6 +22,7 @@ import javax.validation.Valid;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/restaurants")
@@ -34,19 +43,42 @@ public class RestaurantController {
         }
     }
 
-    // READ - Get all restaurants
+    // READ - Get all restaurants (paginated, pass back nextCursor to get the following page)
     @GetMapping
-    public ResponseEntity<List<RestaurantDTO>> getAllRestaurants() {
-        List<RestaurantDTO> restaurants = restaurantService.getAllRestaurants();
-        return ResponseEntity.ok(restaurants);
+    public ResponseEntity<PageResponseDTO<RestaurantDTO>> getAllRestaurants(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        try {
+            return ETags.conditional(ifNoneMatch, collectionETag(),
+                    () -> restaurantService.getAllRestaurants(cursor, size));
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
     }
 
-    // READ - Get restaurant by ID
+    // READ - Get restaurant by ID, written from the cached JSON bytes
+    // A revalidation is answered from the restaurant's cached version, without loading or serializing it
     @GetMapping("/{id}")
-    public ResponseEntity<RestaurantDTO> getRestaurantById(@PathVariable String id) {
+    public ResponseEntity<byte[]> getRestaurantById(
+            @PathVariable String id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
         try {
-            RestaurantDTO restaurant = restaurantService.getRestaurantById(id);
-            return ResponseEntity.ok(restaurant);
+            if (ifNoneMatch != null) {
+                String current = ETags.of(id, restaurantService.getRestaurantVersion(id));
+                String held = ETags.matchingEncoded(ifNoneMatch, current);
+                if (!StaleResponses.isMarked() && held != null) {
+                    return SerializedView.notModified(held);
+                }
+            }
+            // The ETag comes from the version the body was built from, so it never names newer data
+            SerializedView restaurant = restaurantService.getRestaurantView(id);
+            return restaurant.toResponse(ETags.of(id, restaurant.getVersion()), acceptEncoding);
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
         } catch (RuntimeException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
         }
@@ -54,16 +86,98 @@ public class RestaurantController {
 
     // READ - Search restaurants
     @GetMapping("/search")
-    public ResponseEntity<List<RestaurantDTO>> searchRestaurants(@RequestParam(required = false) String q) {
-        List<RestaurantDTO> restaurants = restaurantService.searchRestaurants(q);
-        return ResponseEntity.ok(restaurants);
+    public ResponseEntity<PageResponseDTO<RestaurantDTO>> searchRestaurants(
+            @RequestParam(required = false) String q,
+            @RequestParam(defaultValue = "false") boolean fuzzy,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        try {
+            return ETags.conditional(ifNoneMatch, collectionETag(),
+                    () -> restaurantService.searchRestaurants(q, fuzzy, cursor, size));
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+    }
+
+    // READ - Nearby restaurants, radius mode by default or k-nearest when k is given
+    @GetMapping("/near")
+    public ResponseEntity<List<NearbyRestaurantDTO>> findNearby(
+            @RequestParam double lat,
+            @RequestParam double lng,
+            @RequestParam(required = false) Double radiusKm,
+            @RequestParam(required = false) Integer k) {
+        try {
+            List<NearbyRestaurantDTO> nearby = restaurantService.findNearby(lat, lng, radiusKm, k);
+            return StaleResponses.isMarked() ? StaleResponses.ok().body(nearby) : ResponseEntity.ok(nearby);
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+    }
+
+    // READ - Top rated restaurants: overall, or for one cuisine or city
+    @GetMapping("/top")
+    public ResponseEntity<List<RestaurantDTO>> getTopRated(
+            @RequestParam(required = false) String cuisine,
+            @RequestParam(required = false) String city,
+            @RequestParam(required = false) Integer limit,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        try {
+            return ETags.conditional(ifNoneMatch, collectionETag(),
+                    () -> restaurantService.getTopRated(cuisine, city, limit));
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+    }
+
+    // READ - Facet counts ("Italian (312)") for the list page, optionally narrowed by search and filters
+    @GetMapping("/facets")
+    public ResponseEntity<FacetsDTO> getFacets(
+            @RequestParam(required = false) String q,
+            @RequestParam(defaultValue = "false") boolean fuzzy,
+            @RequestParam(required = false) String cuisine,
+            @RequestParam(required = false) String city) {
+        try {
+            return ResponseEntity.ok(restaurantService.getFacets(q, fuzzy, cuisine, city));
+        } catch (RejectedExecutionException e) {
+            // Search index still being built
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+
+    // READ - Typeahead suggestions (names, cuisines and cities), served from memory
+    @GetMapping("/suggest")
+    public ResponseEntity<List<SuggestionDTO>> suggest(
+            @RequestParam(required = false) String prefix,
+            @RequestParam(required = false) Integer limit) {
+        try {
+            return ResponseEntity.ok(restaurantService.suggest(prefix, limit));
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
     }
 
     // READ - Filter by cuisine
     @GetMapping("/cuisine/{cuisineType}")
-    public ResponseEntity<List<RestaurantDTO>> getRestaurantsByCuisine(@PathVariable String cuisineType) {
-        List<RestaurantDTO> restaurants = restaurantService.getRestaurantsByCuisine(cuisineType);
-        return ResponseEntity.ok(restaurants);
+    public ResponseEntity<PageResponseDTO<RestaurantDTO>> getRestaurantsByCuisine(
+            @PathVariable String cuisineType,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        try {
+            return ETags.conditional(ifNoneMatch, collectionETag(),
+                    () -> restaurantService.getRestaurantsByCuisine(cuisineType, cursor, size));
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
     }
 
     // UPDATE - Update restaurant
@@ -74,6 +188,8 @@ public class RestaurantController {
         try {
             RestaurantDTO updatedRestaurant = restaurantService.updateRestaurant(id, updateDTO);
             return ResponseEntity.ok(updatedRestaurant);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
         } catch (RuntimeException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
         }
@@ -148,4 +264,10 @@ public class RestaurantController {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
         }
     }
+
+    // Helper method for the list endpoints: read before the page is built, so a write racing the read only
+    // makes the ETag older than the page, never newer
+    private String collectionETag() {
+        return ETags.of("restaurants", restaurantService.getCollectionVersion());
+    }
 }
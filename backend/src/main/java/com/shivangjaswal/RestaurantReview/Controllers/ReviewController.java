@@ -3,16 +3,21 @@ package com.shivangjaswal.RestaurantReview.Controllers;
 import com.shivangjaswal.RestaurantReview.Dto.CreateReviewDTO;
 import com.shivangjaswal.RestaurantReview.Dto.ReviewDTO;
 import com.shivangjaswal.RestaurantReview.Dto.UpdateReviewDTO;
-import com.shivangjaswal.RestaurantReview.Entity.User;
+import com.shivangjaswal.RestaurantReview.Security.UserPrincipal;
 import com.shivangjaswal.RestaurantReview.Service.ReviewService;
+import com.shivangjaswal.RestaurantReview.Service.SerializedView;
+import com.shivangjaswal.RestaurantReview.Utils.ETags;
+import com.shivangjaswal.RestaurantReview.Utils.StaleResponses;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
 import javax.validation.Valid;
-import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/restaurants/{restaurantId}/reviews")
@@ -27,7 +32,7 @@ public class ReviewController {
     public ResponseEntity<ReviewDTO> createReview(
             @PathVariable String restaurantId,
             @Valid @RequestBody CreateReviewDTO createReviewDTO,
-            @AuthenticationPrincipal User currentUser) {
+            @AuthenticationPrincipal UserPrincipal currentUser) {
         try {
             // Set the user details from the authenticated user
             createReviewDTO.setUsername(currentUser.getFullName());
@@ -35,17 +40,41 @@ public class ReviewController {
 
             ReviewDTO createdReview = reviewService.createReview(restaurantId, createReviewDTO);
             return ResponseEntity.status(HttpStatus.CREATED).body(createdReview);
+        } catch (IllegalStateException e) {
+            // Already reviewed by this user
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (RejectedExecutionException | TransientDataAccessException e) {
+            // Write-behind queue is full, or its batch write was cut off: worth retrying
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
         }
     }
 
-    // Get all reviews for a restaurant
+    // Get reviews for a restaurant, newest first (paginated, pass back nextCursor to get the following page)
+    // Written from JSON bytes; the first page is cached that way
     @GetMapping
-    public ResponseEntity<List<ReviewDTO>> getReviewsByRestaurant(@PathVariable String restaurantId) {
+    public ResponseEntity<byte[]> getReviewsByRestaurant(
+            @PathVariable String restaurantId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
         try {
-            List<ReviewDTO> reviews = reviewService.getReviewsByRestaurant(restaurantId);
-            return ResponseEntity.ok(reviews);
+            // The restaurant's version changes with every review write
+            if (ifNoneMatch != null) {
+                String current = ETags.of(restaurantId, reviewService.getReviewsVersion(restaurantId), "reviews");
+                String held = ETags.matchingEncoded(ifNoneMatch, current);
+                if (!StaleResponses.isMarked() && held != null) {
+                    return SerializedView.notModified(held);
+                }
+            }
+            SerializedView reviews = reviewService.getReviewsPageView(restaurantId, cursor, size);
+            return reviews.toResponse(ETags.of(restaurantId, reviews.getVersion(), "reviews"), acceptEncoding);
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
         }
@@ -55,10 +84,13 @@ public class ReviewController {
     @GetMapping("/{reviewId}")
     public ResponseEntity<ReviewDTO> getReview(
             @PathVariable String restaurantId,
-            @PathVariable String reviewId) {
+            @PathVariable String reviewId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         try {
-            ReviewDTO review = reviewService.getReview(restaurantId, reviewId);
-            return ResponseEntity.ok(review);
+            String etag = ETags.of(restaurantId, reviewService.getReviewsVersion(restaurantId), reviewId);
+            return ETags.conditional(ifNoneMatch, etag, () -> reviewService.getReview(restaurantId, reviewId));
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
         }
@@ -70,7 +102,7 @@ public class ReviewController {
             @PathVariable String restaurantId,
             @PathVariable String reviewId,
             @Valid @RequestBody UpdateReviewDTO updateReviewDTO,
-            @AuthenticationPrincipal User currentUser) {
+            @AuthenticationPrincipal UserPrincipal currentUser) {
         try {
             ReviewDTO updatedReview = reviewService.updateReview(
                     restaurantId, reviewId, updateReviewDTO, currentUser.getEmail());
@@ -85,7 +117,7 @@ public class ReviewController {
     public ResponseEntity<Void> deleteReview(
             @PathVariable String restaurantId,
             @PathVariable String reviewId,
-            @AuthenticationPrincipal User currentUser) {
+            @AuthenticationPrincipal UserPrincipal currentUser) {
         try {
             reviewService.deleteReview(restaurantId, reviewId, currentUser.getEmail());
             return ResponseEntity.status(HttpStatus.NO_CONTENT).build();
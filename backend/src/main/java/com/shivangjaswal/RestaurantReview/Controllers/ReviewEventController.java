@@ -0,0 +1,40 @@
+package com.shivangjaswal.RestaurantReview.Controllers;
+
+import com.shivangjaswal.RestaurantReview.Service.ReviewEventHub;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.concurrent.RejectedExecutionException;
+
+@RestController
+@RequestMapping("/api/restaurants")
+@CrossOrigin(origins = "http://localhost:3000")
+@RequiredArgsConstructor
+public class ReviewEventController {
+
+    private final ReviewEventHub reviewEventHub;
+
+    // Live review-created/-updated/-deleted and rating-changed events for every restaurant (Server-Sent Events)
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> allEvents() {
+        return subscribe(null);
+    }
+
+    // The same events for one restaurant
+    @GetMapping(value = "/{restaurantId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> restaurantEvents(@PathVariable String restaurantId) {
+        return subscribe(restaurantId);
+    }
+
+    private ResponseEntity<SseEmitter> subscribe(String restaurantId) {
+        try {
+            return ResponseEntity.ok(reviewEventHub.subscribe(restaurantId));
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+}
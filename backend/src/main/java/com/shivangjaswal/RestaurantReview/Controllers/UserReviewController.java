@@ -0,0 +1,39 @@
+package com.shivangjaswal.RestaurantReview.Controllers;
+
+import com.shivangjaswal.RestaurantReview.Dto.PageResponseDTO;
+import com.shivangjaswal.RestaurantReview.Dto.ReviewDTO;
+import com.shivangjaswal.RestaurantReview.Security.UserPrincipal;
+import com.shivangjaswal.RestaurantReview.Service.ReviewService;
+import com.shivangjaswal.RestaurantReview.Utils.StaleResponses;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.concurrent.RejectedExecutionException;
+
+@RestController
+@RequestMapping("/api/users/me/reviews")
+@CrossOrigin(origins = "http://localhost:3000")
+@RequiredArgsConstructor
+public class UserReviewController {
+
+    private final ReviewService reviewService;
+
+    // Get the current user's reviews across all restaurants, newest first (paginated like restaurant reviews)
+    @GetMapping
+    public ResponseEntity<PageResponseDTO<ReviewDTO>> getMyReviews(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            @AuthenticationPrincipal UserPrincipal currentUser) {
+        try {
+            PageResponseDTO<ReviewDTO> reviews = reviewService.getReviewsByUser(currentUser.getEmail(), cursor, size);
+            return StaleResponses.isMarked() ? StaleResponses.ok().body(reviews) : ResponseEntity.ok(reviews);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+}
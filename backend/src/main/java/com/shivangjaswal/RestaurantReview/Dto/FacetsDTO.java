@@ -0,0 +1,18 @@
+package com.shivangjaswal.RestaurantReview.Dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class FacetsDTO {
+    private int total;                      // Restaurants matching the query and both filters
+    private Map<String, Integer> cuisines;  // Cuisine type -> count, largest first
+    private Map<String, Integer> cities;    // City -> count, largest first
+}
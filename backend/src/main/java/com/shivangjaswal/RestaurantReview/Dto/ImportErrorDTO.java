@@ -0,0 +1,15 @@
+package com.shivangjaswal.RestaurantReview.Dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ImportErrorDTO {
+    private long line;      // 1-based line number in the uploaded file
+    private String message;
+}
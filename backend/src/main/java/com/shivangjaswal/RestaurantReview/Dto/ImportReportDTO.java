@@ -0,0 +1,22 @@
+package com.shivangjaswal.RestaurantReview.Dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ImportReportDTO {
+    private long linesRead;
+    private long restaurantsCreated;
+    private long reviewsCreated;
+    private long failedLines;
+
+    // The first failures, at most app.import.max-reported-errors of them; failedLines has the full count
+    private List<ImportErrorDTO> errors;
+}
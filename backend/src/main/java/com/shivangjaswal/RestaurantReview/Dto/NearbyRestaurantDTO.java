@@ -0,0 +1,15 @@
+package com.shivangjaswal.RestaurantReview.Dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class NearbyRestaurantDTO {
+    private RestaurantDTO restaurant;
+    private double distanceKm;
+}
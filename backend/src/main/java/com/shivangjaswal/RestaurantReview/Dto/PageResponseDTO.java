@@ -0,0 +1,21 @@
+package com.shivangjaswal.RestaurantReview.Dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PageResponseDTO<T> {
+    private List<T> content;
+    private int size;
+    private boolean hasNext;
+
+    // Opaque token to pass back as ?cursor= for the next page, null on the last page
+    private String nextCursor;
+}
@@ -8,7 +8,9 @@ import lombok.NoArgsConstructor;
 
 import javax.validation.constraints.NotBlank;
 import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 @Data
 @NoArgsConstructor
@@ -32,10 +34,24 @@ public class RestaurantDTO {
     private String city;
 
     private String phoneNumber;
+    private Double latitude;
+    private Double longitude;
     private Double averageRating;
     private Integer totalReviews;
+    private Map<Integer, Integer> ratingHistogram; // stars (1-5) -> number of reviews
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
+    private long version; // changes with every write to the restaurant or its reviews
 
     private List<String> photoUrls;
+
+    // The stored star histogram ("1".."5" -> count) with every rating from 1 to 5 present
+    public static Map<Integer, Integer> histogramOf(Map<String, Integer> stored) {
+        Map<Integer, Integer> histogram = new LinkedHashMap<>();
+        for (int stars = 1; stars <= 5; stars++) {
+            Integer count = stored != null ? stored.get(String.valueOf(stars)) : null;
+            histogram.put(stars, count != null ? count : 0);
+        }
+        return histogram;
+    }
 }
@@ -6,15 +6,17 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.util.List;
 
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-@Builder
+@Builder(toBuilder = true)
 public class ReviewDTO {
     private String id;
+    private String restaurantId;
     private String username;
     private String userEmail;
     private String content;
@@ -22,5 +24,7 @@ public class ReviewDTO {
     private List<String> photoUrls;
     private LocalDateTime createdAt;
     private LocalDateTime lastEditedAt;
-    private boolean canBeEdited;
+    // End of the 48 hour edit window. A fixed point in time rather than a "can be edited" flag, so cached and
+    // pre-serialized copies stay right for their whole lifetime; clients compare it with their clock.
+    private Instant editableUntil;
 }
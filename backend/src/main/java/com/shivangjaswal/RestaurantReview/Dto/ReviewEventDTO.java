@@ -0,0 +1,41 @@
+package com.shivangjaswal.RestaurantReview.Dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+// Pushed to /events subscribers; which fields are set depends on the type
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ReviewEventDTO {
+    private Type type;
+    private String restaurantId;
+    private LocalDateTime occurredAt;
+
+    // Review events
+    private String reviewId;
+    private ReviewDTO review;               // null for REVIEW_DELETED
+
+    // RATING_CHANGED: the restaurant's aggregates after the change
+    private Double averageRating;
+    private Integer totalReviews;
+    private Map<Integer, Integer> ratingHistogram;
+
+    public enum Type {
+        REVIEW_CREATED,
+        REVIEW_UPDATED,
+        REVIEW_DELETED,
+        RATING_CHANGED;
+
+        // SSE event name, e.g. review-created
+        public String eventName() {
+            return name().toLowerCase().replace('_', '-');
+        }
+    }
+}
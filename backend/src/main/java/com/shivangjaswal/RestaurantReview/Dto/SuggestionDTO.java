@@ -0,0 +1,16 @@
+package com.shivangjaswal.RestaurantReview.Dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SuggestionDTO {
+    private String text;
+    private String type;   // NAME, CUISINE or CITY
+    private int count;     // Number of restaurants with this value
+}
@@ -5,15 +5,34 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.GeoSpatialIndexType;
+import org.springframework.data.mongodb.core.index.GeoSpatialIndexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Document(collection = "restaurants")
+// Back the keyset pagination order used by the list, search and cuisine endpoints,
+// and the per-city leaderboard load
+@CompoundIndexes({
+        @CompoundIndex(name = "listing_order",
+                def = "{'averageRating': -1, 'createdAt': -1, '_id': -1}"),
+        @CompoundIndex(name = "cuisine_listing_order",
+                def = "{'cuisineType': 1, 'averageRating': -1, 'createdAt': -1, '_id': -1}",
+                collation = "{'locale': 'en', 'strength': 2}"),
+        @CompoundIndex(name = "city_top_rated",
+                def = "{'city': 1, 'averageRating': -1, 'totalReviews': -1}",
+                collation = "{'locale': 'en', 'strength': 2}")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -29,11 +48,22 @@ public class Restaurant {
     private String city;
     private String phoneNumber;
 
+    // Optional, restaurants without coordinates never show up in nearby searches
+    @GeoSpatialIndexed(type = GeoSpatialIndexType.GEO_2DSPHERE)
+    private GeoJsonPoint location;
+
+    // Running rating aggregates, moved by $inc deltas on every review write. averageRating is derived
+    // from ratingSum / totalReviews; the histogram counts reviews per star, keyed "1".."5".
     private Double averageRating = 0.0;
     private Integer totalReviews = 0;
-
     @Builder.Default
-    private List<Review> reviews = new ArrayList<>();
+    private Long ratingSum = 0L;
+    @Builder.Default
+    private Map<String, Integer> ratingHistogram = new HashMap<>();
+
+    // Bumped by $inc on every write to the restaurant or to one of its reviews; the ETag of its views.
+    // Documents written before it existed have none, which reads as 0.
+    private Long version;
 
     @CreatedDate
     private LocalDateTime createdAt;
@@ -0,0 +1,64 @@
+package com.shivangjaswal.RestaurantReview.Entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+// Read model for list/search views: a restaurant document without its embedded reviews
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RestaurantSummary {
+    @Id
+    private String id;
+
+    private String name;
+    private String description;
+    private String cuisineType;
+    private String address;
+    private String city;
+    private String phoneNumber;
+    private GeoJsonPoint location;
+
+    private Double averageRating;
+    private Integer totalReviews;
+    private Long ratingSum;
+    private Map<String, Integer> ratingHistogram;
+    private Long version;
+
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+
+    @Builder.Default
+    private List<String> photoUrls = new ArrayList<>();
+
+    public static RestaurantSummary from(Restaurant restaurant) {
+        return RestaurantSummary.builder()
+                .id(restaurant.getId())
+                .name(restaurant.getName())
+                .description(restaurant.getDescription())
+                .cuisineType(restaurant.getCuisineType())
+                .address(restaurant.getAddress())
+                .city(restaurant.getCity())
+                .phoneNumber(restaurant.getPhoneNumber())
+                .location(restaurant.getLocation())
+                .averageRating(restaurant.getAverageRating())
+                .totalReviews(restaurant.getTotalReviews())
+                .ratingSum(restaurant.getRatingSum())
+                .ratingHistogram(restaurant.getRatingHistogram())
+                .version(restaurant.getVersion())
+                .createdAt(restaurant.getCreatedAt())
+                .updatedAt(restaurant.getUpdatedAt())
+                .photoUrls(restaurant.getPhotoUrls())
+                .build();
+    }
+}
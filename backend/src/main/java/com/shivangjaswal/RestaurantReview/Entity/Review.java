@@ -7,15 +7,27 @@ import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.mapping.Document;
 
 import javax.validation.constraints.Max;
 import javax.validation.constraints.Min;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.List;
 
+@Document(collection = "reviews")
+// Newest-first review pages per restaurant and per user, and at most one review per user and restaurant
+@CompoundIndexes({
+        @CompoundIndex(name = "restaurant_reviewer", def = "{'restaurantId': 1, 'userEmail': 1}", unique = true),
+        @CompoundIndex(name = "restaurant_newest", def = "{'restaurantId': 1, 'createdAt': -1, '_id': -1}"),
+        @CompoundIndex(name = "user_newest", def = "{'userEmail': 1, 'createdAt': -1, '_id': -1}")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -24,6 +36,8 @@ public class Review {
     @Id
     private String id;
 
+    private String restaurantId;
+
     @NotBlank(message = "Username is required")
     private String username;
 
@@ -52,4 +66,10 @@ public class Review {
         if (createdAt == null) return false;
         return LocalDateTime.now().isBefore(createdAt.plusHours(48));
     }
+
+    // When the edit window closes; createdAt is in the server's zone
+    public Instant editableUntil() {
+        if (createdAt == null) return Instant.EPOCH;
+        return createdAt.plusHours(48).atZone(ZoneId.systemDefault()).toInstant();
+    }
 }
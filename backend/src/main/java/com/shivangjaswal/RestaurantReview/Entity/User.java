@@ -51,6 +51,9 @@ public class User implements UserDetails {
     @Builder.Default
     private boolean enabled = true;
 
+    // Bumped by AuthService.revokeTokens to revoke every token issued to the user so far
+    private long tokenVersion;
+
     @CreatedDate
     private LocalDateTime createdAt;
 
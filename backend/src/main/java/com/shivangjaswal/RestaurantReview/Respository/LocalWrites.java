@@ -0,0 +1,42 @@
+package com.shivangjaswal.RestaurantReview.Respository;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Restaurant versions written by this node. Every restaurant write bumps the version, so the id and the
+ * version it was bumped to name one write; the cache invalidation bus looks its change events up here and
+ * skips the ones this node made, whose local write path already updated the read models. An entry goes
+ * once its event has been seen, or after app.cache.invalidation.local-writes-ttl-ms for writes whose event
+ * never comes (no change stream, or a gap in it).
+ */
+@Component
+public class LocalWrites {
+
+    private final Cache<String, Boolean> written;
+
+    public LocalWrites(@Value("${app.cache.invalidation.local-writes-ttl-ms:300000}") long ttlMs,
+                       @Value("${app.cache.invalidation.local-writes-max:100000}") long maxEntries) {
+        this.written = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(Duration.ofMillis(ttlMs))
+                .build();
+    }
+
+    public void record(String id, long version) {
+        written.put(key(id, version), Boolean.TRUE);
+    }
+
+    // True, once, if this node wrote the restaurant at that version
+    public boolean consume(String id, long version) {
+        return written.asMap().remove(key(id, version)) != null;
+    }
+
+    private static String key(String id, long version) {
+        return id + "@" + version;
+    }
+}
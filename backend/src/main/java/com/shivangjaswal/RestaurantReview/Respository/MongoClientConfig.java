@@ -0,0 +1,31 @@
+package com.shivangjaswal.RestaurantReview.Respository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Driver timeouts well below the driver's defaults (30 second server selection, no socket read limit), so a
+ * query to an unreachable or hung server gives up instead of holding a read thread and the cache entry it is
+ * loading. Request-path reads also carry their own server-side maxTimeMS (app.reads.query-max-time-ms); the
+ * socket timeout is the backstop for everything else, so it stays above the longest legitimate wait, the
+ * change stream's await time.
+ */
+@Configuration
+public class MongoClientConfig {
+
+    @Bean
+    public MongoClientSettingsBuilderCustomizer mongoTimeouts(
+            @Value("${app.mongo.server-selection-timeout-ms:3000}") long serverSelectionTimeoutMs,
+            @Value("${app.mongo.connect-timeout-ms:3000}") int connectTimeoutMs,
+            @Value("${app.mongo.socket-timeout-ms:10000}") int socketTimeoutMs) {
+        return settings -> settings
+                .applyToClusterSettings(cluster -> cluster.serverSelectionTimeout(serverSelectionTimeoutMs, TimeUnit.MILLISECONDS))
+                .applyToSocketSettings(socket -> socket
+                        .connectTimeout(connectTimeoutMs, TimeUnit.MILLISECONDS)
+                        .readTimeout(socketTimeoutMs, TimeUnit.MILLISECONDS));
+    }
+}
@@ -1,6 +1,7 @@
 package com.shivangjaswal.RestaurantReview.Respository;
 
 import com.shivangjaswal.RestaurantReview.Entity.Restaurant;
+import com.shivangjaswal.RestaurantReview.Entity.RestaurantSummary;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
@@ -8,19 +9,20 @@ import org.springframework.stereotype.Repository;
 import java.util.List;
 
 @Repository
-public interface RestaurantRepository extends MongoRepository<Restaurant, String> {
+public interface RestaurantRepository extends MongoRepository<Restaurant, String>, RestaurantRepositoryCustom {
 
-    // Basic query methods
-    List<Restaurant> findByNameContainingIgnoreCase(String name);
-    List<Restaurant> findByCuisineTypeIgnoreCase(String cuisineType);
-    List<Restaurant> findByAverageRatingGreaterThanEqual(Double rating);
+    // Basic query methods (summaries only, embedded reviews are not loaded)
+    List<RestaurantSummary> findByNameContainingIgnoreCase(String name);
+    List<RestaurantSummary> findByCuisineTypeIgnoreCase(String cuisineType);
+    List<RestaurantSummary> findByAverageRatingGreaterThanEqual(Double rating);
 
 //     Custom query for search
-    @Query("{ $or: [ " +
+    @Query(value = "{ $or: [ " +
             "{ 'name': { $regex: ?0, $options: 'i' } }, " +
             "{ 'description': { $regex: ?0, $options: 'i' } }, " +
             "{ 'cuisineType': { $regex: ?0, $options: 'i' } } " +
-            "] }")
-    List<Restaurant> searchRestaurants(String searchTerm);
+            "] }",
+            fields = "{ 'reviews': 0 }")
+    List<RestaurantSummary> searchRestaurants(String searchTerm);
 }
 
@@ -0,0 +1,66 @@
+package com.shivangjaswal.RestaurantReview.Respository;
+
+import com.shivangjaswal.RestaurantReview.Entity.Restaurant;
+import com.shivangjaswal.RestaurantReview.Entity.RestaurantSummary;
+import com.shivangjaswal.RestaurantReview.Utils.RestaurantCursor;
+import org.springframework.data.geo.GeoResult;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+public interface RestaurantRepositoryCustom {
+
+    // Keyset page in (averageRating desc, createdAt desc, _id desc) order.
+    // cuisineType and searchTerm are optional filters, after is null for the first page.
+    List<RestaurantSummary> findPage(String cuisineType, String searchTerm, RestaurantCursor after, int limit);
+
+    // Summaries for the given ids, in no particular order
+    List<RestaurantSummary> findSummariesByIds(Collection<String> ids);
+
+    // Cursor-backed stream over every restaurant summary, must be closed by the caller
+    Stream<RestaurantSummary> streamAllSummaries();
+
+    // Restaurants nearest to the point, closest first, optionally within maxDistanceKm
+    List<GeoResult<RestaurantSummary>> findNear(double latitude, double longitude, Double maxDistanceKm, int limit);
+
+    // Best rated restaurants (rating, then review count), optionally of one cuisine or city
+    List<RestaurantSummary> findTopRated(String cuisineType, String city, int limit);
+
+    // Move the running rating aggregates by one review's change: removedRating is the rating taken away
+    // (null for a new review), addedRating the one put in (null for a deleted review). Ratings outside 1-5
+    // throw IllegalArgumentException. Returns the updated summary.
+    Optional<RestaurantSummary> applyRatingChange(String id, Integer removedRating, Integer addedRating);
+
+    // Add several new reviews to the running rating aggregates in one write: rating (1-5) -> number of reviews
+    Optional<RestaurantSummary> addRatings(String id, Map<Integer, Integer> ratingCounts);
+
+    // Set the rating aggregates from a full count, only if the restaurant has none stored yet
+    boolean initRatingAggregates(String id, Map<Integer, Integer> ratingCounts);
+
+    // Overwrite the rating aggregates with a full count, only if the restaurant is still at expectedVersion
+    // (so no review write landed since the count was taken). Empty when it moved on or is gone.
+    Optional<RestaurantSummary> resetRatingAggregates(String id, Map<Integer, Integer> ratingCounts, long expectedVersion);
+
+    // Set the given fields in place without rewriting the rest of the document, returns the updated restaurant
+    Optional<Restaurant> updateFields(String id, Map<String, Object> fields);
+
+    // Remove one photo url in place, returns the updated restaurant
+    Optional<Restaurant> pullPhoto(String id, String photoUrl);
+
+    // Bump the version alone, for writes that change only the restaurant's reviews. False when it doesn't exist.
+    boolean bumpVersion(String id);
+
+    // Just the version of one restaurant (0 when it has none stored yet), without reading the rest of it
+    Optional<Long> findVersion(String id);
+
+    // Insert new restaurants (ids already assigned) in one unordered bulk write.
+    // Returns the error message per failed position in the list, empty when all were written.
+    Map<Integer, String> insertAllUnordered(List<Restaurant> restaurants);
+
+    // The ids from the given ones that belong to an existing restaurant
+    Set<String> findExistingIds(Collection<String> ids);
+}
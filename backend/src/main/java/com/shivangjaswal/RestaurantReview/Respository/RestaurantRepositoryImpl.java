@@ -0,0 +1,361 @@
+package com.shivangjaswal.RestaurantReview.Respository;
+
+import com.shivangjaswal.RestaurantReview.Entity.Restaurant;
+import com.shivangjaswal.RestaurantReview.Entity.RestaurantSummary;
+import com.shivangjaswal.RestaurantReview.Utils.RestaurantCursor;
+import com.mongodb.bulk.BulkWriteError;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.geo.Distance;
+import org.springframework.data.geo.GeoResult;
+import org.springframework.data.geo.Metrics;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+import org.springframework.data.mongodb.core.query.Collation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.NearQuery;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+@RequiredArgsConstructor
+public class RestaurantRepositoryImpl implements RestaurantRepositoryCustom {
+
+    // Must match the collation of the cuisine listing index on Restaurant
+    private static final Collation CASE_INSENSITIVE = Collation.of("en").strength(Collation.ComparisonLevel.secondary());
+
+    private final MongoTemplate mongoTemplate;
+    private final LocalWrites localWrites;
+
+    // Server-side limit for the reads behind request paths, so a read abandoned at its deadline (see
+    // ResilientReads) is killed on the server too
+    @Value("${app.reads.query-max-time-ms:1500}")
+    private long readMaxTimeMs;
+
+    @Override
+    public List<RestaurantSummary> findPage(String cuisineType, String searchTerm, RestaurantCursor after, int limit) {
+        List<Criteria> filters = new ArrayList<>();
+
+        if (cuisineType != null) {
+            filters.add(Criteria.where("cuisineType").is(cuisineType));
+        }
+
+        if (searchTerm != null) {
+            Pattern pattern = Pattern.compile(Pattern.quote(searchTerm), Pattern.CASE_INSENSITIVE);
+            filters.add(new Criteria().orOperator(
+                    Criteria.where("name").regex(pattern),
+                    Criteria.where("description").regex(pattern),
+                    Criteria.where("cuisineType").regex(pattern)));
+        }
+
+        if (after != null) {
+            filters.add(afterCursor(after));
+        }
+
+        Query query = new Query();
+        if (!filters.isEmpty()) {
+            query.addCriteria(new Criteria().andOperator(filters));
+        }
+        query.with(Sort.by(Sort.Direction.DESC, "averageRating", "createdAt", "_id"));
+        query.limit(limit);
+        if (cuisineType != null) {
+            query.collation(CASE_INSENSITIVE);
+        }
+
+        // Project out the embedded reviews, list views never need them
+        query.fields().exclude("reviews");
+        query.maxTime(Duration.ofMillis(readMaxTimeMs));
+
+        return mongoTemplate.find(query, RestaurantSummary.class, mongoTemplate.getCollectionName(Restaurant.class));
+    }
+
+    @Override
+    public List<RestaurantSummary> findSummariesByIds(Collection<String> ids) {
+        Query query = new Query(Criteria.where("_id").in(ids));
+        query.maxTime(Duration.ofMillis(readMaxTimeMs));
+        query.fields().exclude("reviews");
+        return mongoTemplate.find(query, RestaurantSummary.class, mongoTemplate.getCollectionName(Restaurant.class));
+    }
+
+    @Override
+    public Stream<RestaurantSummary> streamAllSummaries() {
+        Query query = new Query();
+        query.fields().exclude("reviews");
+        return mongoTemplate.stream(query, RestaurantSummary.class, mongoTemplate.getCollectionName(Restaurant.class));
+    }
+
+    @Override
+    public List<RestaurantSummary> findTopRated(String cuisineType, String city, int limit) {
+        Query query = new Query();
+        if (cuisineType != null) {
+            query.addCriteria(Criteria.where("cuisineType").is(cuisineType));
+        } else if (city != null) {
+            query.addCriteria(Criteria.where("city").is(city));
+        }
+        query.with(Sort.by(Sort.Order.desc("averageRating"), Sort.Order.desc("totalReviews"), Sort.Order.asc("_id")));
+        query.limit(limit);
+        query.collation(CASE_INSENSITIVE);
+        query.fields().exclude("reviews");
+        return mongoTemplate.find(query, RestaurantSummary.class, mongoTemplate.getCollectionName(Restaurant.class));
+    }
+
+    @Override
+    public List<GeoResult<RestaurantSummary>> findNear(double latitude, double longitude, Double maxDistanceKm, int limit) {
+        NearQuery near = NearQuery.near(new GeoJsonPoint(longitude, latitude), Metrics.KILOMETERS)
+                .spherical(true)
+                .limit(limit);
+        if (maxDistanceKm != null) {
+            near.maxDistance(maxDistanceKm, Metrics.KILOMETERS);
+        }
+
+        // $geoNear has no projection of its own, so drop the embedded reviews in a second stage
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.geoNear(near, "distance"),
+                Aggregation.project().andExclude("reviews"))
+                .withOptions(AggregationOptions.builder().maxTime(Duration.ofMillis(readMaxTimeMs)).build());
+
+        return mongoTemplate.aggregate(aggregation, mongoTemplate.getCollectionName(Restaurant.class), Document.class)
+                .getMappedResults().stream()
+                .map(document -> new GeoResult<>(
+                        mongoTemplate.getConverter().read(RestaurantSummary.class, document),
+                        new Distance(document.get("distance", Number.class).doubleValue(), Metrics.KILOMETERS)))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public Optional<RestaurantSummary> applyRatingChange(String id, Integer removedRating, Integer addedRating) {
+        checkRating(removedRating);
+        checkRating(addedRating);
+        int removed = removedRating == null ? 0 : removedRating;
+        int added = addedRating == null ? 0 : addedRating;
+        Update update = new Update()
+                .inc("ratingSum", added - removed)
+                .inc("totalReviews", (addedRating != null ? 1 : 0) - (removedRating != null ? 1 : 0));
+        if (removedRating != null) {
+            update.inc("ratingHistogram." + removedRating, -1);
+        }
+        if (addedRating != null) {
+            update.inc("ratingHistogram." + addedRating, 1);
+        }
+        return incRatings(id, update);
+    }
+
+    @Override
+    public Optional<RestaurantSummary> addRatings(String id, Map<Integer, Integer> ratingCounts) {
+        long sum = 0;
+        int count = 0;
+        Update update = new Update();
+        for (Map.Entry<Integer, Integer> entry : ratingCounts.entrySet()) {
+            checkRating(entry.getKey());
+            sum += (long) entry.getKey() * entry.getValue();
+            count += entry.getValue();
+            update.inc("ratingHistogram." + entry.getKey(), entry.getValue());
+        }
+        update.inc("ratingSum", sum).inc("totalReviews", count);
+        return incRatings(id, update);
+    }
+
+    // A rating outside 1-5 would add a histogram bucket of its own and skew the sum
+    private static void checkRating(Integer rating) {
+        if (rating != null && (rating < 1 || rating > 5)) {
+            throw new IllegalArgumentException("Rating must be between 1 and 5: " + rating);
+        }
+    }
+
+    // Apply an $inc of the rating aggregates, then derive the average from the result
+    private Optional<RestaurantSummary> incRatings(String id, Update update) {
+        update.inc("version", 1);
+        Query query = new Query(Criteria.where("_id").is(id));
+        query.fields().exclude("reviews");
+        RestaurantSummary restaurant = mongoTemplate.findAndModify(query, update,
+                FindAndModifyOptions.options().returnNew(true), RestaurantSummary.class,
+                mongoTemplate.getCollectionName(Restaurant.class));
+        if (restaurant == null) {
+            return Optional.empty();
+        }
+        localWrites.record(id, restaurant.getVersion());
+
+        // $inc can't divide, so the average follows in a second write. It only applies while the sum and
+        // count are still the ones it was derived from; if another review got in between, that writer's own
+        // follow-up sets the newer average instead of this one overwriting it. It bumps the version again,
+        // so a view read between the two writes doesn't keep the ETag of the finished one.
+        restaurant.setAverageRating(averageOf(restaurant.getRatingSum(), restaurant.getTotalReviews()));
+        boolean averaged = mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(id)
+                        .and("ratingSum").is(restaurant.getRatingSum())
+                        .and("totalReviews").is(restaurant.getTotalReviews())),
+                new Update().set("averageRating", restaurant.getAverageRating()).inc("version", 1),
+                Restaurant.class).getModifiedCount() > 0;
+        if (averaged) {
+            restaurant.setVersion(restaurant.getVersion() + 1);
+            localWrites.record(id, restaurant.getVersion());
+        }
+        return Optional.of(restaurant);
+    }
+
+    @Override
+    public boolean initRatingAggregates(String id, Map<Integer, Integer> ratingCounts) {
+        return mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(id).and("ratingSum").exists(false)),
+                aggregatesOf(ratingCounts), Restaurant.class).getModifiedCount() > 0;
+    }
+
+    @Override
+    public Optional<RestaurantSummary> resetRatingAggregates(String id, Map<Integer, Integer> ratingCounts, long expectedVersion) {
+        // Documents from before versioning have no version field and read as 0
+        Criteria version = expectedVersion == 0
+                ? new Criteria().orOperator(Criteria.where("version").is(0L), Criteria.where("version").exists(false))
+                : Criteria.where("version").is(expectedVersion);
+        Query query = new Query(new Criteria().andOperator(Criteria.where("_id").is(id), version));
+        query.fields().exclude("reviews");
+        return Optional.ofNullable(mongoTemplate.findAndModify(query, aggregatesOf(ratingCounts),
+                        FindAndModifyOptions.options().returnNew(true), RestaurantSummary.class,
+                        mongoTemplate.getCollectionName(Restaurant.class)))
+                .map(this::recorded);
+    }
+
+    // Helper method to set every rating aggregate from a full count: rating (1-5) -> number of reviews
+    private Update aggregatesOf(Map<Integer, Integer> ratingCounts) {
+        long sum = 0;
+        int count = 0;
+        Map<String, Integer> histogram = new HashMap<>();
+        for (Map.Entry<Integer, Integer> entry : ratingCounts.entrySet()) {
+            sum += (long) entry.getKey() * entry.getValue();
+            count += entry.getValue();
+            histogram.put(String.valueOf(entry.getKey()), entry.getValue());
+        }
+
+        return new Update()
+                .set("ratingSum", sum)
+                .set("totalReviews", count)
+                .set("ratingHistogram", histogram)
+                .set("averageRating", averageOf(sum, count))
+                .inc("version", 1);
+    }
+
+    @Override
+    public Optional<Restaurant> updateFields(String id, Map<String, Object> fields) {
+        Update update = new Update().inc("version", 1);
+        fields.forEach(update::set);
+        return Optional.ofNullable(mongoTemplate.findAndModify(new Query(Criteria.where("_id").is(id)), update,
+                        FindAndModifyOptions.options().returnNew(true), Restaurant.class))
+                .map(this::recorded);
+    }
+
+    @Override
+    public Optional<Restaurant> pullPhoto(String id, String photoUrl) {
+        Update update = new Update().pull("photoUrls", photoUrl).set("updatedAt", LocalDateTime.now()).inc("version", 1);
+        return Optional.ofNullable(mongoTemplate.findAndModify(new Query(Criteria.where("_id").is(id)), update,
+                        FindAndModifyOptions.options().returnNew(true), Restaurant.class))
+                .map(this::recorded);
+    }
+
+    @Override
+    public boolean bumpVersion(String id) {
+        // Read back the new version only, so the write can be recognized when its change event comes back
+        Query query = new Query(Criteria.where("_id").is(id));
+        query.fields().include("version");
+        return Optional.ofNullable(mongoTemplate.findAndModify(query, new Update().inc("version", 1),
+                        FindAndModifyOptions.options().returnNew(true), RestaurantSummary.class,
+                        mongoTemplate.getCollectionName(Restaurant.class)))
+                .map(this::recorded)
+                .isPresent();
+    }
+
+    @Override
+    public Optional<Long> findVersion(String id) {
+        Query query = new Query(Criteria.where("_id").is(id));
+        query.fields().include("version");
+        query.maxTime(Duration.ofMillis(readMaxTimeMs));
+        RestaurantSummary restaurant = mongoTemplate.findOne(query, RestaurantSummary.class,
+                mongoTemplate.getCollectionName(Restaurant.class));
+        return Optional.ofNullable(restaurant)
+                .map(summary -> summary.getVersion() != null ? summary.getVersion() : 0L);
+    }
+
+    @Override
+    public Map<Integer, String> insertAllUnordered(List<Restaurant> restaurants) {
+        Map<Integer, String> errors = new HashMap<>();
+        if (restaurants.isEmpty()) {
+            return errors;
+        }
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Restaurant.class)
+                    .insert(restaurants)
+                    .execute();
+        } catch (BulkOperationException e) {
+            // Unordered: everything without an error was still written
+            for (BulkWriteError error : e.getErrors()) {
+                errors.put(error.getIndex(), error.getMessage());
+            }
+        }
+        for (int i = 0; i < restaurants.size(); i++) {
+            if (!errors.containsKey(i)) {
+                recorded(restaurants.get(i));
+            }
+        }
+        return errors;
+    }
+
+    @Override
+    public Set<String> findExistingIds(Collection<String> ids) {
+        Query query = new Query(Criteria.where("_id").in(ids));
+        query.fields().include("_id");
+        return mongoTemplate.find(query, RestaurantSummary.class, mongoTemplate.getCollectionName(Restaurant.class)).stream()
+                .map(RestaurantSummary::getId)
+                .collect(Collectors.toSet());
+    }
+
+    // Helper methods to note a write this node made, at the version it left the restaurant at
+    private Restaurant recorded(Restaurant restaurant) {
+        localWrites.record(restaurant.getId(), restaurant.getVersion() != null ? restaurant.getVersion() : 0L);
+        return restaurant;
+    }
+
+    private RestaurantSummary recorded(RestaurantSummary restaurant) {
+        localWrites.record(restaurant.getId(), restaurant.getVersion() != null ? restaurant.getVersion() : 0L);
+        return restaurant;
+    }
+
+    // Average rounded to 2 decimal places, 0 for no reviews
+    private static double averageOf(long sum, int count) {
+        return count == 0 ? 0.0 : Math.round(sum * 100.0 / count) / 100.0;
+    }
+
+    // Everything strictly after the cursor position in the listing order
+    private Criteria afterCursor(RestaurantCursor after) {
+        Criteria lowerRating = Criteria.where("averageRating").lt(after.getAverageRating());
+        if (after.getCreatedAt() == null) {
+            return new Criteria().orOperator(lowerRating,
+                    new Criteria().andOperator(
+                            Criteria.where("averageRating").is(after.getAverageRating()),
+                            Criteria.where("createdAt").is(null),
+                            Criteria.where("_id").lt(after.getId())));
+        }
+        return new Criteria().orOperator(lowerRating,
+                new Criteria().andOperator(
+                        Criteria.where("averageRating").is(after.getAverageRating()),
+                        Criteria.where("createdAt").lt(after.getCreatedAt())),
+                new Criteria().andOperator(
+                        Criteria.where("averageRating").is(after.getAverageRating()),
+                        Criteria.where("createdAt").is(after.getCreatedAt()),
+                        Criteria.where("_id").lt(after.getId())));
+    }
+}
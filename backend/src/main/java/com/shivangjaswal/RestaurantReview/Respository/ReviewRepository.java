@@ -0,0 +1,13 @@
+package com.shivangjaswal.RestaurantReview.Respository;
+
+import com.shivangjaswal.RestaurantReview.Entity.Review;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface ReviewRepository extends MongoRepository<Review, String>, ReviewRepositoryCustom {
+    Optional<Review> findByIdAndRestaurantId(String id, String restaurantId);
+    long deleteByRestaurantId(String restaurantId);
+}
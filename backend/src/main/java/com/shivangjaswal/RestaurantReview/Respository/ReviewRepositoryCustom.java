@@ -0,0 +1,51 @@
+package com.shivangjaswal.RestaurantReview.Respository;
+
+import com.shivangjaswal.RestaurantReview.Entity.Review;
+import com.shivangjaswal.RestaurantReview.Utils.ReviewCursor;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+public interface ReviewRepositoryCustom {
+
+    // Keyset page of a restaurant's reviews, newest first (createdAt desc, _id desc).
+    // after is null for the first page.
+    List<Review> findPageByRestaurant(String restaurantId, ReviewCursor after, int limit);
+
+    // Cursor over the reviews of several restaurants, grouped by restaurantId (ascending), newest first
+    // within a restaurant. The caller must close the stream.
+    Stream<Review> streamByRestaurants(Collection<String> restaurantIds);
+
+    // Newest-first page of one user's reviews across all restaurants, same cursor rules as above
+    List<Review> findPageByUser(String userEmail, ReviewCursor after, int limit);
+
+    // Insert the review unless the same user already reviewed the restaurant, in one atomic upsert backed by
+    // the unique restaurant_reviewer index. Returns false when a review by that user already exists.
+    boolean insertIfNotReviewed(Review review);
+
+    // insertIfNotReviewed for a whole batch in one unordered bulk write. Returns one outcome per review,
+    // in the order given.
+    List<InsertOutcome> insertAllIfNotReviewed(List<Review> reviews);
+
+    // Apply the non-null changes to the review only if it belongs to the user and was created after
+    // editableSince, in one atomic findAndModify. Returns the review as it was before the change,
+    // so callers can see the rating it replaced; empty if the guard failed.
+    Optional<Review> updateIfEditable(String restaurantId, String reviewId, String userEmail, LocalDateTime editableSince,
+                                      LocalDateTime editedAt, String content, Integer rating, List<String> photoUrls);
+
+    // Delete the review only if it belongs to the user. Returns the deleted review, empty if the guard failed.
+    Optional<Review> deleteIfOwned(String restaurantId, String reviewId, String userEmail);
+
+    // Number of reviews per star rating of a restaurant, counted from the reviews themselves
+    Map<Integer, Integer> ratingCounts(String restaurantId);
+
+    enum InsertOutcome {
+        INSERTED,
+        ALREADY_REVIEWED,
+        FAILED
+    }
+}
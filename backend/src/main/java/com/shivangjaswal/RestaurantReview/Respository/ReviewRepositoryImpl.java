@@ -0,0 +1,179 @@
+package com.shivangjaswal.RestaurantReview.Respository;
+
+import com.shivangjaswal.RestaurantReview.Entity.Review;
+import com.shivangjaswal.RestaurantReview.Utils.ReviewCursor;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.bulk.BulkWriteUpsert;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+@RequiredArgsConstructor
+@Slf4j
+public class ReviewRepositoryImpl implements ReviewRepositoryCustom {
+
+    private static final int DUPLICATE_KEY = 11000;
+
+    private final MongoTemplate mongoTemplate;
+
+    // Server-side limit for the page reads behind request paths (see RestaurantRepositoryImpl)
+    @Value("${app.reads.query-max-time-ms:1500}")
+    private long readMaxTimeMs;
+
+    @Override
+    public List<Review> findPageByRestaurant(String restaurantId, ReviewCursor after, int limit) {
+        return findNewestPage(Criteria.where("restaurantId").is(restaurantId), after, limit);
+    }
+
+    @Override
+    public List<Review> findPageByUser(String userEmail, ReviewCursor after, int limit) {
+        return findNewestPage(Criteria.where("userEmail").is(userEmail), after, limit);
+    }
+
+    @Override
+    public Stream<Review> streamByRestaurants(Collection<String> restaurantIds) {
+        Query query = new Query(Criteria.where("restaurantId").in(restaurantIds));
+        query.with(Sort.by(Sort.Order.asc("restaurantId"), Sort.Order.desc("createdAt"), Sort.Order.desc("_id")));
+        return mongoTemplate.stream(query, Review.class);
+    }
+
+    // Newest first within the owner filter, everything strictly after the cursor; served by the
+    // {owner, createdAt, _id} indexes on Review
+    private List<Review> findNewestPage(Criteria owner, ReviewCursor after, int limit) {
+        Criteria criteria = owner;
+        if (after != null) {
+            criteria = new Criteria().andOperator(owner, new Criteria().orOperator(
+                    Criteria.where("createdAt").lt(after.getCreatedAt()),
+                    new Criteria().andOperator(
+                            Criteria.where("createdAt").is(after.getCreatedAt()),
+                            Criteria.where("_id").lt(after.getId()))));
+        }
+
+        Query query = new Query(criteria);
+        query.with(Sort.by(Sort.Direction.DESC, "createdAt", "_id"));
+        query.limit(limit);
+        query.maxTime(Duration.ofMillis(readMaxTimeMs));
+        return mongoTemplate.find(query, Review.class);
+    }
+
+    @Override
+    public boolean insertIfNotReviewed(Review review) {
+        Query alreadyReviewed = new Query(Criteria.where("restaurantId").is(review.getRestaurantId())
+                .and("userEmail").is(review.getUserEmail()));
+
+        try {
+            return mongoTemplate.upsert(alreadyReviewed, insertOnly(review), Review.class).getUpsertedId() != null;
+        } catch (DuplicateKeyException e) {
+            // Lost the race against a concurrent insert by the same user, the unique index rejected this one
+            return false;
+        }
+    }
+
+    @Override
+    public List<InsertOutcome> insertAllIfNotReviewed(List<Review> reviews) {
+        List<InsertOutcome> outcomes = new ArrayList<>(Collections.nCopies(reviews.size(), InsertOutcome.ALREADY_REVIEWED));
+        if (reviews.isEmpty()) {
+            return outcomes;
+        }
+
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Review.class);
+        for (Review review : reviews) {
+            bulk.upsert(new Query(Criteria.where("restaurantId").is(review.getRestaurantId())
+                    .and("userEmail").is(review.getUserEmail())), insertOnly(review));
+        }
+
+        BulkWriteResult result;
+        try {
+            result = bulk.execute();
+        } catch (BulkOperationException e) {
+            // Unordered: everything without an error was still applied
+            result = e.getResult();
+            for (BulkWriteError error : e.getErrors()) {
+                if (error.getCode() != DUPLICATE_KEY) {
+                    log.warn("Bulk review insert failed for {}: {}", reviews.get(error.getIndex()).getId(), error.getMessage());
+                    outcomes.set(error.getIndex(), InsertOutcome.FAILED);
+                }
+            }
+        }
+        for (BulkWriteUpsert upsert : result.getUpserts()) {
+            outcomes.set(upsert.getIndex(), InsertOutcome.INSERTED);
+        }
+        return outcomes;
+    }
+
+    @Override
+    public Optional<Review> updateIfEditable(String restaurantId, String reviewId, String userEmail, LocalDateTime editableSince,
+                                             LocalDateTime editedAt, String content, Integer rating, List<String> photoUrls) {
+        Query guard = new Query(Criteria.where("_id").is(reviewId)
+                .and("restaurantId").is(restaurantId)
+                .and("userEmail").is(userEmail)
+                .and("createdAt").gt(editableSince));
+
+        Update update = new Update().set("lastEditedAt", editedAt);
+        if (content != null) {
+            update.set("content", content);
+        }
+        if (rating != null) {
+            update.set("rating", rating);
+        }
+        if (photoUrls != null) {
+            update.set("photoUrls", photoUrls);
+        }
+
+        return Optional.ofNullable(mongoTemplate.findAndModify(guard, update,
+                FindAndModifyOptions.options().returnNew(false), Review.class));
+    }
+
+    @Override
+    public Optional<Review> deleteIfOwned(String restaurantId, String reviewId, String userEmail) {
+        Query guard = new Query(Criteria.where("_id").is(reviewId)
+                .and("restaurantId").is(restaurantId)
+                .and("userEmail").is(userEmail));
+        return Optional.ofNullable(mongoTemplate.findAndRemove(guard, Review.class));
+    }
+
+    // Every field only takes effect on insert, a match leaves the existing review untouched
+    private Update insertOnly(Review review) {
+        Document document = new Document();
+        mongoTemplate.getConverter().write(review, document);
+        Update update = new Update();
+        document.forEach(update::setOnInsert);
+        return update;
+    }
+
+    @Override
+    public Map<Integer, Integer> ratingCounts(String restaurantId) {
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("restaurantId").is(restaurantId)),
+                Aggregation.group("rating").count().as("count"));
+
+        Map<Integer, Integer> counts = new HashMap<>();
+        for (Document group : mongoTemplate.aggregate(aggregation, Review.class, Document.class)) {
+            counts.put(group.get("_id", Number.class).intValue(), group.get("count", Number.class).intValue());
+        }
+        return counts;
+    }
+}
@@ -2,6 +2,8 @@ package com.shivangjaswal.RestaurantReview.Respository;
 
 import com.shivangjaswal.RestaurantReview.Entity.User;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.Update;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
@@ -13,4 +15,13 @@ public interface UserRepository extends MongoRepository<User, String> {
     Optional<User> findByUsernameOrEmail(String username, String email);
     Boolean existsByUsername(String username);
     Boolean existsByEmail(String email);
+
+    // Only what the per-request token check needs
+    @Query(value = "{ '_id': ?0 }", fields = "{ 'enabled': 1, 'accountNonLocked': 1, 'role': 1, 'tokenVersion': 1 }")
+    Optional<User> findStatusById(String id);
+
+    // Number of users updated, 0 for an unknown id
+    @Query("{ '_id': ?0 }")
+    @Update("{ '$inc': { 'tokenVersion': 1 } }")
+    long incrementTokenVersionById(String id);
 }
@@ -0,0 +1,6 @@
+package com.shivangjaswal.RestaurantReview.Search;
+
+public enum FacetField {
+    CUISINE,
+    CITY
+}
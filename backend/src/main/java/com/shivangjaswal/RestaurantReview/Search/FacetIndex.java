@@ -0,0 +1,171 @@
+package com.shivangjaswal.RestaurantReview.Search;
+
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Facet counts over cuisine type and city. Every restaurant gets a small integer ordinal and every
+ * facet value keeps a compressed bitmap of the ordinals that have it, so the counts for any result
+ * set are bitmap intersection cardinalities instead of database queries.
+ */
+public class FacetIndex {
+
+    private final Map<String, Integer> ordinals = new HashMap<>();
+    private final Deque<Integer> freeOrdinals = new ArrayDeque<>();
+    private int nextOrdinal;
+    private final RoaringBitmap all = new RoaringBitmap();
+
+    private final Map<FacetField, Map<String, FacetValue>> values = new EnumMap<>(FacetField.class);
+    private final Map<Integer, Map<FacetField, String>> valuesByOrdinal = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public FacetIndex() {
+        for (FacetField field : FacetField.values()) {
+            values.put(field, new HashMap<>());
+        }
+    }
+
+    public void put(String id, String cuisineType, String city) {
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinals.get(id);
+            if (ordinal == null) {
+                // Reuse freed ordinals so the bitmaps stay dense
+                ordinal = freeOrdinals.isEmpty() ? nextOrdinal++ : freeOrdinals.pop();
+                ordinals.put(id, ordinal);
+                all.add(ordinal);
+            } else {
+                clearValues(ordinal);
+            }
+
+            Map<FacetField, String> restaurantValues = new EnumMap<>(FacetField.class);
+            setValue(ordinal, FacetField.CUISINE, cuisineType, restaurantValues);
+            setValue(ordinal, FacetField.CITY, city, restaurantValues);
+            valuesByOrdinal.put(ordinal, restaurantValues);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String id) {
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinals.remove(id);
+            if (ordinal == null) {
+                return;
+            }
+            clearValues(ordinal);
+            valuesByOrdinal.remove(ordinal);
+            all.remove(ordinal);
+            freeOrdinals.push(ordinal);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Every indexed restaurant
+    public RoaringBitmap all() {
+        lock.readLock().lock();
+        try {
+            return all.clone();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // The restaurants among the given ids, unknown ids are ignored
+    public RoaringBitmap of(Collection<String> ids) {
+        lock.readLock().lock();
+        try {
+            RoaringBitmap bitmap = new RoaringBitmap();
+            for (String id : ids) {
+                Integer ordinal = ordinals.get(id);
+                if (ordinal != null) {
+                    bitmap.add(ordinal);
+                }
+            }
+            return bitmap;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // The restaurants with the given value (case-insensitive), empty if none have it
+    public RoaringBitmap withValue(FacetField field, String value) {
+        lock.readLock().lock();
+        try {
+            FacetValue facetValue = values.get(field).get(TrigramIndex.normalize(value));
+            return facetValue == null ? new RoaringBitmap() : facetValue.restaurants.clone();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Count of restaurants in the result set for every value of the field, largest first
+    public Map<String, Integer> counts(FacetField field, RoaringBitmap result) {
+        lock.readLock().lock();
+        try {
+            List<Map.Entry<String, Integer>> counts = new ArrayList<>();
+            for (FacetValue facetValue : values.get(field).values()) {
+                int count = RoaringBitmap.andCardinality(facetValue.restaurants, result);
+                if (count > 0) {
+                    counts.add(Map.entry(facetValue.display, count));
+                }
+            }
+            counts.sort(Map.Entry.<String, Integer>comparingByValue().reversed()
+                    .thenComparing(Map.Entry.comparingByKey()));
+
+            Map<String, Integer> sorted = new LinkedHashMap<>();
+            counts.forEach(entry -> sorted.put(entry.getKey(), entry.getValue()));
+            return sorted;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Must be called with the write lock held
+    private void setValue(int ordinal, FacetField field, String value, Map<FacetField, String> restaurantValues) {
+        String normalized = TrigramIndex.normalize(value);
+        if (normalized.isEmpty()) {
+            return;
+        }
+        values.get(field).computeIfAbsent(normalized, v -> new FacetValue(value.trim())).restaurants.add(ordinal);
+        restaurantValues.put(field, normalized);
+    }
+
+    // Must be called with the write lock held
+    private void clearValues(int ordinal) {
+        Map<FacetField, String> previous = valuesByOrdinal.get(ordinal);
+        if (previous == null) {
+            return;
+        }
+        for (Map.Entry<FacetField, String> entry : previous.entrySet()) {
+            Map<String, FacetValue> fieldValues = values.get(entry.getKey());
+            FacetValue facetValue = fieldValues.get(entry.getValue());
+            facetValue.restaurants.remove(ordinal);
+            if (facetValue.restaurants.isEmpty()) {
+                fieldValues.remove(entry.getValue());
+            }
+        }
+    }
+
+    private static class FacetValue {
+        private final String display;
+        private final RoaringBitmap restaurants = new RoaringBitmap();
+
+        FacetValue(String display) {
+            this.display = display;
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package com.shivangjaswal.RestaurantReview.Search;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Typo-tolerant lookup over the words of restaurant names and cuisine types, using a
+ * symmetric-delete dictionary: every indexed word is stored under all the strings obtained by
+ * deleting up to two of its characters, so a misspelled query word finds its candidates by
+ * generating its own deletes and doing hash lookups. Candidates are confirmed with a bounded
+ * edit distance, and a restaurant matches when every query word matches one of its words.
+ */
+public class FuzzyIndex {
+
+    private static final int MAX_DISTANCE = 2;
+
+    // Words this short allow fewer typos, or "pho" would match almost anything
+    private static final int ONE_EDIT_MIN_LENGTH = 3;
+    private static final int TWO_EDITS_MIN_LENGTH = 6;
+
+    private final Map<String, Set<String>> restaurantsByWord = new HashMap<>();
+    private final Map<String, Set<String>> wordsByDelete = new HashMap<>();
+    private final Map<String, Set<String>> wordsByRestaurant = new HashMap<>();
+    private final Map<String, String> names = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public void put(String id, String name, String cuisineType) {
+        Set<String> words = new HashSet<>(words(name));
+        words.addAll(words(cuisineType));
+
+        lock.writeLock().lock();
+        try {
+            removeInternal(id);
+            wordsByRestaurant.put(id, words);
+            names.put(id, TrigramIndex.normalize(name));
+            for (String word : words) {
+                Set<String> restaurants = restaurantsByWord.get(word);
+                if (restaurants == null) {
+                    restaurants = new HashSet<>();
+                    restaurantsByWord.put(word, restaurants);
+                    for (String delete : deletes(word, MAX_DISTANCE)) {
+                        wordsByDelete.computeIfAbsent(delete, d -> new HashSet<>()).add(word);
+                    }
+                }
+                restaurants.add(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String id) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Restaurants matching every query word within its allowed edit distance, closest first
+    public List<SearchHit> search(String query) {
+        List<String> queryWords = new ArrayList<>(new LinkedHashSet<>(words(query)));
+        if (queryWords.isEmpty()) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            Map<String, Integer> scores = null;
+            for (String queryWord : queryWords) {
+                int maxDistance = maxDistance(queryWord);
+                Map<String, Integer> wordScores = new HashMap<>();
+                for (Map.Entry<String, Integer> match : matches(queryWord, maxDistance).entrySet()) {
+                    int score = maxDistance + 1 - match.getValue();
+                    for (String id : restaurantsByWord.get(match.getKey())) {
+                        wordScores.merge(id, score, Math::max);
+                    }
+                }
+
+                if (scores == null) {
+                    scores = wordScores;
+                } else {
+                    scores.keySet().retainAll(wordScores.keySet());
+                    for (Map.Entry<String, Integer> entry : scores.entrySet()) {
+                        entry.setValue(entry.getValue() + wordScores.get(entry.getKey()));
+                    }
+                }
+                if (scores.isEmpty()) {
+                    return List.of();
+                }
+            }
+
+            List<SearchHit> hits = new ArrayList<>(scores.size());
+            for (Map.Entry<String, Integer> entry : scores.entrySet()) {
+                hits.add(new SearchHit(entry.getKey(), entry.getValue(), names.get(entry.getKey())));
+            }
+            hits.sort(SearchHit.ORDER);
+            return hits;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Indexed words within maxDistance of the query word, with their distance
+    // Must be called with the read lock held
+    private Map<String, Integer> matches(String queryWord, int maxDistance) {
+        Set<String> candidates = new HashSet<>();
+        for (String delete : deletes(queryWord, maxDistance)) {
+            if (restaurantsByWord.containsKey(delete)) {
+                candidates.add(delete);
+            }
+            Set<String> words = wordsByDelete.get(delete);
+            if (words != null) {
+                candidates.addAll(words);
+            }
+        }
+
+        Map<String, Integer> matches = new HashMap<>();
+        for (String candidate : candidates) {
+            int distance = distance(queryWord, candidate, maxDistance);
+            if (distance <= maxDistance) {
+                matches.put(candidate, distance);
+            }
+        }
+        return matches;
+    }
+
+    private void removeInternal(String id) {
+        names.remove(id);
+        Set<String> words = wordsByRestaurant.remove(id);
+        if (words == null) {
+            return;
+        }
+        for (String word : words) {
+            Set<String> restaurants = restaurantsByWord.get(word);
+            restaurants.remove(id);
+            if (restaurants.isEmpty()) {
+                restaurantsByWord.remove(word);
+                for (String delete : deletes(word, MAX_DISTANCE)) {
+                    Set<String> deleteWords = wordsByDelete.get(delete);
+                    if (deleteWords != null) {
+                        deleteWords.remove(word);
+                        if (deleteWords.isEmpty()) {
+                            wordsByDelete.remove(delete);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private static int maxDistance(String word) {
+        if (word.length() >= TWO_EDITS_MIN_LENGTH) {
+            return 2;
+        }
+        return word.length() >= ONE_EDIT_MIN_LENGTH ? 1 : 0;
+    }
+
+    static List<String> words(String value) {
+        List<String> words = new ArrayList<>();
+        for (String word : TrigramIndex.normalize(value).split("[^\\p{L}\\p{N}]+")) {
+            if (!word.isEmpty()) {
+                words.add(word);
+            }
+        }
+        return words;
+    }
+
+    // The word itself plus every string reachable by deleting up to maxDistance characters
+    static Set<String> deletes(String word, int maxDistance) {
+        Set<String> deletes = new HashSet<>();
+        deletes.add(word);
+        Set<String> frontier = Set.of(word);
+        for (int d = 0; d < maxDistance; d++) {
+            Set<String> next = new HashSet<>();
+            for (String value : frontier) {
+                for (int i = 0; i < value.length(); i++) {
+                    String delete = value.substring(0, i) + value.substring(i + 1);
+                    if (deletes.add(delete)) {
+                        next.add(delete);
+                    }
+                }
+            }
+            frontier = next;
+        }
+        return deletes;
+    }
+
+    // Optimal string alignment distance (edits plus adjacent transpositions), maxDistance + 1 once exceeded
+    static int distance(String a, String b, int maxDistance) {
+        if (Math.abs(a.length() - b.length()) > maxDistance) {
+            return maxDistance + 1;
+        }
+        int[][] d = new int[a.length() + 1][b.length() + 1];
+        for (int i = 0; i <= a.length(); i++) {
+            d[i][0] = i;
+        }
+        for (int j = 0; j <= b.length(); j++) {
+            d[0][j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            int rowMin = Integer.MAX_VALUE;
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                d[i][j] = Math.min(Math.min(d[i - 1][j] + 1, d[i][j - 1] + 1), d[i - 1][j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    d[i][j] = Math.min(d[i][j], d[i - 2][j - 2] + 1);
+                }
+                rowMin = Math.min(rowMin, d[i][j]);
+            }
+            if (rowMin > maxDistance) {
+                return maxDistance + 1;
+            }
+        }
+        return Math.min(d[a.length()][b.length()], maxDistance + 1);
+    }
+}
@@ -0,0 +1,99 @@
+package com.shivangjaswal.RestaurantReview.Search;
+
+import com.shivangjaswal.RestaurantReview.Entity.RestaurantSummary;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Bounded top-N of one scope (all restaurants, one cuisine or one city) ordered by rating, then
+ * review count. Scores are updated in place; when a member falls out and nothing is known about
+ * the restaurants below the cut-off, the board is flagged stale so the owner reloads it.
+ */
+public class Leaderboard {
+
+    // Best rating first, more reviews first on ties, then id so entries are distinct
+    public static final Comparator<RestaurantSummary> ORDER = Comparator
+            .comparingDouble((RestaurantSummary r) -> r.getAverageRating() != null ? r.getAverageRating() : 0.0).reversed()
+            .thenComparing(Comparator.comparingInt((RestaurantSummary r) -> r.getTotalReviews() != null ? r.getTotalReviews() : 0).reversed())
+            .thenComparing(RestaurantSummary::getId);
+
+    private final int capacity;
+    private final NavigableSet<RestaurantSummary> entries = new ConcurrentSkipListSet<>(ORDER);
+    private final Map<String, RestaurantSummary> byId = new HashMap<>();
+
+    // True when the whole scope fits, so every restaurant in it is on the board
+    private boolean complete;
+
+    // Starts stale since nothing has been loaded yet
+    private volatile boolean stale = true;
+
+    public Leaderboard(int capacity) {
+        this.capacity = capacity;
+    }
+
+    // Replace the contents with the top of the scope as read from the database
+    public synchronized void load(Collection<RestaurantSummary> top) {
+        entries.clear();
+        byId.clear();
+        top.stream().limit(capacity).forEach(this::add);
+        complete = top.size() < capacity;
+        stale = false;
+    }
+
+    public synchronized void update(RestaurantSummary restaurant) {
+        RestaurantSummary previous = byId.remove(restaurant.getId());
+        if (previous != null) {
+            entries.remove(previous);
+        }
+
+        boolean fits = complete || (!entries.isEmpty() && ORDER.compare(restaurant, entries.last()) < 0);
+        if (fits) {
+            add(restaurant);
+            while (entries.size() > capacity) {
+                byId.remove(entries.pollLast().getId());
+                complete = false;
+            }
+        } else if (previous != null) {
+            // A member dropped below the cut-off, whoever replaces it is only known to the database
+            stale = true;
+        }
+    }
+
+    public synchronized void remove(String id) {
+        RestaurantSummary previous = byId.remove(id);
+        if (previous != null) {
+            entries.remove(previous);
+            if (!complete) {
+                stale = true;
+            }
+        }
+    }
+
+    public boolean isStale() {
+        return stale;
+    }
+
+    // Lock-free read of the current top entries
+    public List<RestaurantSummary> top(int limit) {
+        List<RestaurantSummary> top = new ArrayList<>(Math.min(limit, capacity));
+        for (RestaurantSummary restaurant : entries) {
+            if (top.size() == limit) {
+                break;
+            }
+            top.add(restaurant);
+        }
+        return top;
+    }
+
+    private void add(RestaurantSummary restaurant) {
+        entries.add(restaurant);
+        byId.put(restaurant.getId(), restaurant);
+    }
+}
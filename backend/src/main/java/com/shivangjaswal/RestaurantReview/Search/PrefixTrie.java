@@ -0,0 +1,108 @@
+package com.shivangjaswal.RestaurantReview.Search;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Prefix trie where every node caches the best values stored at or below it, so a top-k
+ * lookup costs one walk down the prefix and never visits the subtree. Writes are serialized
+ * and refresh the cached lists along the touched path; reads take no lock.
+ */
+public class PrefixTrie<T> {
+
+    private final Comparator<? super T> order;
+    private final int capacity;
+    private final Node<T> root = new Node<>();
+
+    public PrefixTrie(Comparator<? super T> order, int capacity) {
+        this.order = order;
+        this.capacity = capacity;
+    }
+
+    public synchronized void add(String key, T value) {
+        List<Node<T>> path = pathTo(key, true);
+        path.get(path.size() - 1).values.add(value);
+        refresh(key, path);
+    }
+
+    public synchronized void remove(String key, T value) {
+        List<Node<T>> path = pathTo(key, false);
+        if (path.size() != key.length() + 1) {
+            return;
+        }
+        path.get(path.size() - 1).values.remove(value);
+        refresh(key, path);
+    }
+
+    // Swap a value for its re-weighted version under the same key with a single path refresh
+    public synchronized void replace(String key, T oldValue, T newValue) {
+        List<Node<T>> path = pathTo(key, true);
+        Node<T> node = path.get(path.size() - 1);
+        node.values.remove(oldValue);
+        node.values.add(newValue);
+        refresh(key, path);
+    }
+
+    // Best values whose key starts with the prefix, at most the trie capacity
+    public List<T> top(String prefix, int limit) {
+        Node<T> node = root;
+        for (int i = 0; i < prefix.length() && node != null; i++) {
+            node = node.children.get(prefix.charAt(i));
+        }
+        if (node == null) {
+            return Collections.emptyList();
+        }
+        List<T> top = node.top;
+        return top.size() <= limit ? top : top.subList(0, limit);
+    }
+
+    private List<Node<T>> pathTo(String key, boolean create) {
+        List<Node<T>> path = new ArrayList<>(key.length() + 1);
+        Node<T> node = root;
+        path.add(node);
+        for (int i = 0; i < key.length(); i++) {
+            Node<T> child = node.children.get(key.charAt(i));
+            if (child == null) {
+                if (!create) {
+                    return path;
+                }
+                child = new Node<>();
+                node.children.put(key.charAt(i), child);
+            }
+            node = child;
+            path.add(node);
+        }
+        return path;
+    }
+
+    // Recompute cached lists bottom-up along the path, pruning nodes left empty
+    private void refresh(String key, List<Node<T>> path) {
+        for (int depth = path.size() - 1; depth >= 0; depth--) {
+            Node<T> node = path.get(depth);
+            if (depth > 0 && node.values.isEmpty() && node.children.isEmpty()) {
+                path.get(depth - 1).children.remove(key.charAt(depth - 1));
+                continue;
+            }
+
+            Set<T> candidates = new LinkedHashSet<>(node.values);
+            for (Node<T> child : node.children.values()) {
+                candidates.addAll(child.top);
+            }
+            List<T> top = new ArrayList<>(candidates);
+            top.sort(order);
+            node.top = Collections.unmodifiableList(top.size() > capacity ? new ArrayList<>(top.subList(0, capacity)) : top);
+        }
+    }
+
+    private static class Node<T> {
+        private final Map<Character, Node<T>> children = new ConcurrentHashMap<>();
+        private final List<T> values = new ArrayList<>();
+        private volatile List<T> top = Collections.emptyList();
+    }
+}
@@ -0,0 +1,21 @@
+package com.shivangjaswal.RestaurantReview.Search;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Comparator;
+
+@Getter
+@AllArgsConstructor
+public class SearchHit {
+
+    // Best score first, ties broken by name then id so the order is stable across pages
+    public static final Comparator<SearchHit> ORDER = Comparator
+            .comparingInt(SearchHit::getScore).reversed()
+            .thenComparing(SearchHit::getName)
+            .thenComparing(SearchHit::getId);
+
+    private final String id;
+    private final int score;
+    private final String name;
+}
@@ -0,0 +1,19 @@
+package com.shivangjaswal.RestaurantReview.Search;
+
+import lombok.Value;
+
+import java.util.Comparator;
+
+@Value
+public class Suggestion {
+
+    // Most restaurants first, then names before cuisines before cities, then alphabetical
+    public static final Comparator<Suggestion> ORDER = Comparator
+            .comparingInt(Suggestion::getCount).reversed()
+            .thenComparing(Suggestion::getType)
+            .thenComparing(Suggestion::getText);
+
+    SuggestionType type;
+    String text;
+    int count;
+}
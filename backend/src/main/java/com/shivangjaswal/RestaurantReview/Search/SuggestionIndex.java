@@ -0,0 +1,105 @@
+package com.shivangjaswal.RestaurantReview.Search;
+
+import lombok.Value;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Typeahead suggestions over restaurant names, cuisine types and cities. Each distinct value is
+ * one suggestion weighted by the number of restaurants that have it, reachable from the start of
+ * any of its words ("palace" finds "Pizza Palace").
+ */
+public class SuggestionIndex {
+
+    private static final int CAPACITY = 20;
+
+    private final PrefixTrie<Suggestion> trie = new PrefixTrie<>(Suggestion.ORDER, CAPACITY);
+    private final Map<TermKey, Suggestion> suggestions = new HashMap<>();
+    private final Map<String, List<TermKey>> termsByRestaurant = new HashMap<>();
+
+    public synchronized void put(String id, String name, String cuisineType, String city) {
+        remove(id);
+
+        List<TermKey> terms = new ArrayList<>(3);
+        addTerm(terms, SuggestionType.NAME, name);
+        addTerm(terms, SuggestionType.CUISINE, cuisineType);
+        addTerm(terms, SuggestionType.CITY, city);
+        termsByRestaurant.put(id, terms);
+    }
+
+    public synchronized void remove(String id) {
+        List<TermKey> terms = termsByRestaurant.remove(id);
+        if (terms == null) {
+            return;
+        }
+        for (TermKey term : terms) {
+            Suggestion previous = suggestions.get(term);
+            if (previous.getCount() == 1) {
+                suggestions.remove(term);
+                for (String key : keys(term.getNormalized())) {
+                    trie.remove(key, previous);
+                }
+            } else {
+                Suggestion updated = new Suggestion(previous.getType(), previous.getText(), previous.getCount() - 1);
+                suggestions.put(term, updated);
+                for (String key : keys(term.getNormalized())) {
+                    trie.replace(key, previous, updated);
+                }
+            }
+        }
+    }
+
+    public List<Suggestion> suggest(String prefix, int limit) {
+        String normalized = TrigramIndex.normalize(prefix);
+        if (normalized.isEmpty()) {
+            return List.of();
+        }
+        return trie.top(normalized, Math.min(limit, CAPACITY));
+    }
+
+    private void addTerm(List<TermKey> terms, SuggestionType type, String text) {
+        String normalized = TrigramIndex.normalize(text);
+        if (normalized.isEmpty()) {
+            return;
+        }
+        TermKey term = new TermKey(type, normalized);
+        if (terms.contains(term)) {
+            return;
+        }
+        terms.add(term);
+
+        Suggestion previous = suggestions.get(term);
+        if (previous == null) {
+            Suggestion created = new Suggestion(type, text.trim(), 1);
+            suggestions.put(term, created);
+            for (String key : keys(normalized)) {
+                trie.add(key, created);
+            }
+        } else {
+            Suggestion updated = new Suggestion(type, previous.getText(), previous.getCount() + 1);
+            suggestions.put(term, updated);
+            for (String key : keys(normalized)) {
+                trie.replace(key, previous, updated);
+            }
+        }
+    }
+
+    // The value itself plus every word-start suffix of it
+    private static List<String> keys(String normalized) {
+        List<String> keys = new ArrayList<>();
+        keys.add(normalized);
+        for (int i = normalized.indexOf(' '); i >= 0; i = normalized.indexOf(' ', i + 1)) {
+            keys.add(normalized.substring(i + 1));
+        }
+        return keys;
+    }
+
+    @Value
+    private static class TermKey {
+        SuggestionType type;
+        String normalized;
+    }
+}
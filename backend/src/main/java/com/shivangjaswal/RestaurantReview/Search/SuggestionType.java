@@ -0,0 +1,7 @@
+package com.shivangjaswal.RestaurantReview.Search;
+
+public enum SuggestionType {
+    NAME,
+    CUISINE,
+    CITY
+}
@@ -0,0 +1,187 @@
+package com.shivangjaswal.RestaurantReview.Search;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory trigram inverted index over restaurant name, cuisine type and description.
+ * A query is answered by intersecting the posting lists of its trigrams and then verifying
+ * the candidates with a substring check, so results match a case-insensitive "contains"
+ * search without scanning every document.
+ */
+public class TrigramIndex {
+
+    private static final int GRAM = 3;
+
+    // Relevance weight of a match in each field
+    private static final int NAME_WEIGHT = 10;
+    private static final int CUISINE_WEIGHT = 6;
+    private static final int DESCRIPTION_WEIGHT = 2;
+    private static final int NAME_PREFIX_BONUS = 5;
+    private static final int NAME_EXACT_BONUS = 10;
+
+    private final Map<String, Set<String>> postings = new HashMap<>();
+    private final Map<String, IndexedDocument> documents = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public void put(String id, String name, String cuisineType, String description) {
+        IndexedDocument document = new IndexedDocument(id, normalize(name), normalize(cuisineType), normalize(description));
+        lock.writeLock().lock();
+        try {
+            removeInternal(id);
+            documents.put(id, document);
+            for (String gram : document.grams()) {
+                postings.computeIfAbsent(gram, g -> new HashSet<>()).add(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String id) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // All documents containing the query in any field, best match first
+    public List<SearchHit> search(String query) {
+        String term = normalize(query);
+        if (term.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        lock.readLock().lock();
+        try {
+            List<SearchHit> hits = new ArrayList<>();
+            for (String id : candidates(term)) {
+                int score = documents.get(id).score(term);
+                if (score > 0) {
+                    hits.add(new SearchHit(id, score, documents.get(id).name));
+                }
+            }
+            hits.sort(SearchHit.ORDER);
+            return hits;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Must be called with the read lock held
+    private Iterable<String> candidates(String term) {
+        // Too short to have a trigram, the documents themselves are the only way in
+        if (term.length() < GRAM) {
+            return documents.keySet();
+        }
+
+        List<Set<String>> lists = new ArrayList<>();
+        for (String gram : grams(term)) {
+            Set<String> posting = postings.get(gram);
+            if (posting == null) {
+                return Collections.emptyList();
+            }
+            lists.add(posting);
+        }
+        lists.sort(Comparator.comparingInt(Set::size));
+
+        Set<String> result = new HashSet<>(lists.get(0));
+        for (int i = 1; i < lists.size() && !result.isEmpty(); i++) {
+            result.retainAll(lists.get(i));
+        }
+        return result;
+    }
+
+    private void removeInternal(String id) {
+        IndexedDocument previous = documents.remove(id);
+        if (previous == null) {
+            return;
+        }
+        for (String gram : previous.grams()) {
+            Set<String> posting = postings.get(gram);
+            if (posting != null) {
+                posting.remove(id);
+                if (posting.isEmpty()) {
+                    postings.remove(gram);
+                }
+            }
+        }
+    }
+
+    static String normalize(String value) {
+        if (value == null) {
+            return "";
+        }
+        return value.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    static Set<String> grams(String value) {
+        Set<String> grams = new LinkedHashSet<>();
+        for (int i = 0; i + GRAM <= value.length(); i++) {
+            grams.add(value.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+
+    private static class IndexedDocument {
+        private final String id;
+        private final String name;
+        private final String cuisineType;
+        private final String description;
+
+        IndexedDocument(String id, String name, String cuisineType, String description) {
+            this.id = id;
+            this.name = name;
+            this.cuisineType = cuisineType;
+            this.description = description;
+        }
+
+        Set<String> grams() {
+            Set<String> grams = TrigramIndex.grams(name);
+            grams.addAll(TrigramIndex.grams(cuisineType));
+            grams.addAll(TrigramIndex.grams(description));
+            return grams;
+        }
+
+        int score(String term) {
+            int score = 0;
+            if (name.contains(term)) {
+                score += NAME_WEIGHT;
+                if (name.startsWith(term)) {
+                    score += NAME_PREFIX_BONUS;
+                }
+                if (name.equals(term)) {
+                    score += NAME_EXACT_BONUS;
+                }
+            }
+            if (cuisineType.contains(term)) {
+                score += CUISINE_WEIGHT;
+            }
+            if (description.contains(term)) {
+                score += DESCRIPTION_WEIGHT;
+            }
+            return score;
+        }
+    }
+}
@@ -1,7 +1,10 @@
 package com.shivangjaswal.RestaurantReview.Security;
 
+import com.shivangjaswal.RestaurantReview.Entity.User;
 import com.shivangjaswal.RestaurantReview.Service.CustomUserDetailsService;
+import com.shivangjaswal.RestaurantReview.Service.UserStatusCache;
 import com.shivangjaswal.RestaurantReview.Utils.JwtUtils;
+import io.jsonwebtoken.Claims;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -27,19 +30,20 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtUtils jwtUtils;
     private final CustomUserDetailsService userDetailsService;
+    private final UserStatusCache userStatusCache;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
                                     FilterChain filterChain) throws ServletException, IOException {
         try {
             String jwt = parseJwt(request);
-            if (jwt != null && jwtUtils.validateJwtToken(jwt)) {
-                String username = jwtUtils.getUserNameFromJwtToken(jwt);
-
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+            // Parsed and verified once, or not at all for a token seen recently
+            Claims claims = jwt != null ? jwtUtils.getVerifiedClaims(jwt) : null;
+            UserPrincipal principal = claims != null ? principalFor(claims) : null;
+            if (principal != null) {
                 UsernamePasswordAuthenticationToken authentication =
-                        new UsernamePasswordAuthenticationToken(userDetails, null,
-                                userDetails.getAuthorities());
+                        new UsernamePasswordAuthenticationToken(principal, null,
+                                principal.getAuthorities());
                 authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
 
                 SecurityContextHolder.getContext().setAuthentication(authentication);
@@ -51,6 +55,22 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    // The token carries the user, so only the cached status check is left; a token issued before tokens
+    // carried the user id is still looked up until it expires
+    private UserPrincipal principalFor(Claims claims) {
+        if (claims.get(JwtUtils.CLAIM_USER_ID) == null) {
+            UserDetails user = userDetailsService.loadUserByUsername(claims.getSubject());
+            return user instanceof User found && found.isEnabled() && found.isAccountNonLocked()
+                    ? UserPrincipal.from(found) : null;
+        }
+        UserPrincipal principal = UserPrincipal.fromClaims(claims);
+        if (!userStatusCache.isActive(principal.getId(), principal.getTokenVersion(), principal.getRole())) {
+            logger.debug("Rejected token of disabled, deleted, demoted or revoked user {}", principal.getUsername());
+            return null;
+        }
+        return principal;
+    }
+
     private String parseJwt(HttpServletRequest request) {
         String headerAuth = request.getHeader("Authorization");
 
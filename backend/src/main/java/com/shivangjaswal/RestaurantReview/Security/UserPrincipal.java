@@ -0,0 +1,62 @@
+package com.shivangjaswal.RestaurantReview.Security;
+
+import com.shivangjaswal.RestaurantReview.Entity.User;
+import com.shivangjaswal.RestaurantReview.Utils.JwtUtils;
+import io.jsonwebtoken.Claims;
+import lombok.Builder;
+import lombok.Getter;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * The authenticated user of a request, built from the claims of its token rather than the users collection.
+ * Holds what controllers use; the password never leaves the login.
+ */
+@Getter
+@Builder
+public class UserPrincipal implements UserDetails {
+
+    private final String id;
+    private final String username;
+    private final String email;
+    private final String fullName;
+    private final String role;
+    private final long tokenVersion;
+
+    public static UserPrincipal from(User user) {
+        return UserPrincipal.builder()
+                .id(user.getId())
+                .username(user.getUsername())
+                .email(user.getEmail())
+                .fullName(user.getFullName())
+                .role(user.getRole())
+                .tokenVersion(user.getTokenVersion())
+                .build();
+    }
+
+    public static UserPrincipal fromClaims(Claims claims) {
+        Number tokenVersion = claims.get(JwtUtils.CLAIM_TOKEN_VERSION, Number.class);
+        return UserPrincipal.builder()
+                .id(claims.get(JwtUtils.CLAIM_USER_ID, String.class))
+                .username(claims.getSubject())
+                .email(claims.get(JwtUtils.CLAIM_EMAIL, String.class))
+                .fullName(claims.get(JwtUtils.CLAIM_FULL_NAME, String.class))
+                .role(claims.get(JwtUtils.CLAIM_ROLE, String.class))
+                .tokenVersion(tokenVersion != null ? tokenVersion.longValue() : 0)
+                .build();
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return List.of(new SimpleGrantedAuthority("ROLE_" + role));
+    }
+
+    @Override
+    public String getPassword() {
+        return null;
+    }
+}
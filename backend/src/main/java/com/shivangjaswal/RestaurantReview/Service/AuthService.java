@@ -24,6 +24,7 @@ public class AuthService {
     private final PasswordEncoder passwordEncoder;
     private final AuthenticationManager authenticationManager;
     private final JwtUtils jwtUtils;
+    private final UserStatusCache userStatusCache;
 
     public AuthResponseDTO register(RegisterRequestDTO registerRequest) {
         // Check if username exists
@@ -93,4 +94,14 @@ public class AuthService {
                 .role(user.getRole())
                 .build();
     }
+
+    // Every token issued to the user so far stops working, on this node at once and on the others when the
+    // change reaches them. Behind "log out everywhere" and the admin revoke endpoint; a password reset or
+    // account change should call it too
+    public void revokeTokens(String userId) {
+        if (userRepository.incrementTokenVersionById(userId) == 0) {
+            throw new RuntimeException("User not found");
+        }
+        userStatusCache.invalidate(userId);
+    }
 }
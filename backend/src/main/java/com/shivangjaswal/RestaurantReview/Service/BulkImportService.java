@@ -0,0 +1,400 @@
+package com.shivangjaswal.RestaurantReview.Service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shivangjaswal.RestaurantReview.Dto.CreateRestaurantDTO;
+import com.shivangjaswal.RestaurantReview.Dto.CreateReviewDTO;
+import com.shivangjaswal.RestaurantReview.Dto.ImportErrorDTO;
+import com.shivangjaswal.RestaurantReview.Dto.ImportReportDTO;
+import com.shivangjaswal.RestaurantReview.Entity.Restaurant;
+import com.shivangjaswal.RestaurantReview.Entity.RestaurantSummary;
+import com.shivangjaswal.RestaurantReview.Entity.Review;
+import com.shivangjaswal.RestaurantReview.Respository.RestaurantRepository;
+import com.shivangjaswal.RestaurantReview.Respository.ReviewRepository;
+import com.shivangjaswal.RestaurantReview.Respository.ReviewRepositoryCustom.InsertOutcome;
+import com.shivangjaswal.RestaurantReview.Utils.DtoConstraints;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Bulk import of restaurants and reviews from NDJSON, one record per line:
+ *
+ * <pre>
+ * {"type":"restaurant","ref":"r1","name":"...","cuisineType":"...","address":"...","city":"...", ...}
+ * {"type":"review","restaurantRef":"r1","username":"...","userEmail":"...","content":"...","rating":4}
+ * {"type":"review","restaurantId":"&lt;existing id&gt;", ..., "createdAt":"2024-05-01T19:30:00"}
+ * </pre>
+ *
+ * Restaurant fields are those of CreateRestaurantDTO, review fields those of CreateReviewDTO plus an
+ * optional createdAt, and both are checked against the DTOs' constraints. A review points at a restaurant
+ * of the same file through its ref, or at an existing one through its id. A ref only resolves for reviews
+ * after the restaurant's line: a review whose restaurantRef first appears further down fails as unknown.
+ *
+ * The body is read line by line, at most app.import.max-line-chars per line, and written in unordered bulk
+ * batches. Besides one batch, memory holds the file's refs (at most app.import.max-refs, later refs fail),
+ * a cache of restaurant ids known to exist (cleared when it reaches the same size) and the rating counts
+ * not yet added, which are flushed every batch-size restaurants. A bad line is reported with its line
+ * number and skipped; the rest still imports.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BulkImportService {
+
+    private final RestaurantRepository restaurantRepository;
+    private final ReviewRepository reviewRepository;
+    private final RestaurantSearchService restaurantSearchService;
+    private final NearbySearchCache nearbySearchCache;
+    private final LeaderboardService leaderboardService;
+    private final ViewCache viewCache;
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.import.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${app.import.max-reported-errors:1000}")
+    private int maxReportedErrors;
+
+    @Value("${app.import.max-line-chars:65536}")
+    private int maxLineChars;
+
+    @Value("${app.import.max-refs:100000}")
+    private int maxRefs;
+
+    public ImportReportDTO importNdjson(InputStream body) throws IOException {
+        ImportRun run = new ImportRun();
+
+        try (LineReader reader = new LineReader(
+                new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8)), maxLineChars)) {
+            String text;
+            while ((text = reader.next()) != null) {
+                run.linesRead++;
+                if (reader.tooLong) {
+                    run.fail(run.linesRead, "Line longer than " + maxLineChars + " characters");
+                    continue;
+                }
+                if (text.isBlank()) {
+                    continue;
+                }
+                try {
+                    readLine(run, run.linesRead, objectMapper.readTree(text));
+                } catch (JsonProcessingException e) {
+                    run.fail(run.linesRead, "Invalid JSON: " + e.getOriginalMessage());
+                }
+            }
+        }
+        flushRestaurants(run);
+        flushReviews(run);
+        flushRatings(run);
+
+        // Dropped again after the last ratings, see flushRatings
+        if (run.restaurantsCreated > 0 || run.reviewsCreated > 0) {
+            leaderboardService.invalidateAll();
+            nearbySearchCache.invalidateAll();
+            viewCache.invalidateAll();
+        }
+
+        log.info("Imported {} restaurants and {} reviews from {} lines, {} failed",
+                run.restaurantsCreated, run.reviewsCreated, run.linesRead, run.failedLines);
+        return ImportReportDTO.builder()
+                .linesRead(run.linesRead)
+                .restaurantsCreated(run.restaurantsCreated)
+                .reviewsCreated(run.reviewsCreated)
+                .failedLines(run.failedLines)
+                .errors(run.errors)
+                .build();
+    }
+
+    private void readLine(ImportRun run, long line, JsonNode record) throws JsonProcessingException {
+        String type = record.path("type").asText();
+        switch (type) {
+            case "restaurant" -> readRestaurant(run, line, record);
+            case "review" -> readReview(run, line, record);
+            default -> run.fail(line, "Unknown record type: '" + type + "', expected restaurant or review");
+        }
+    }
+
+    private void readRestaurant(ImportRun run, long line, JsonNode record) throws JsonProcessingException {
+        CreateRestaurantDTO dto = objectMapper.treeToValue(record, CreateRestaurantDTO.class);
+        List<String> violations = DtoConstraints.violations(dto);
+        if ((dto.getLatitude() == null) != (dto.getLongitude() == null)) {
+            violations.add("Latitude and longitude must be provided together");
+        }
+        String ref = record.path("ref").asText(null);
+        if (!violations.isEmpty()) {
+            run.fail(line, String.join("; ", violations));
+            return;
+        }
+        if (ref != null && run.refs.containsKey(ref)) {
+            run.fail(line, "Duplicate ref: " + ref);
+            return;
+        }
+        if (ref != null && run.refs.size() >= maxRefs) {
+            run.fail(line, "More than " + maxRefs + " refs in one import, split the file or refer to restaurants by id");
+            return;
+        }
+
+        // The id is fixed here so the ref resolves before the batch is written; a failed write leaves it unknown
+        String id = new ObjectId().toHexString();
+        if (ref != null) {
+            run.refs.put(ref, id);
+        }
+        LocalDateTime now = LocalDateTime.now();
+        Restaurant restaurant = Restaurant.builder()
+                .id(id)
+                .name(dto.getName())
+                .description(dto.getDescription())
+                .cuisineType(dto.getCuisineType())
+                .address(dto.getAddress())
+                .city(dto.getCity())
+                .phoneNumber(dto.getPhoneNumber())
+                .location(dto.getLatitude() != null ? new GeoJsonPoint(dto.getLongitude(), dto.getLatitude()) : null)
+                .averageRating(0.0)
+                .totalReviews(0)
+                .version(0L)
+                .photoUrls(dto.getPhotoUrls() != null ? dto.getPhotoUrls() : new ArrayList<>())
+                .createdAt(now)
+                .updatedAt(now)
+                .build();
+
+        run.restaurants.add(new PendingRestaurant(line, restaurant));
+        if (run.restaurants.size() >= batchSize) {
+            flushRestaurants(run);
+        }
+    }
+
+    private void readReview(ImportRun run, long line, JsonNode record) throws JsonProcessingException {
+        CreateReviewDTO dto = objectMapper.treeToValue(record, CreateReviewDTO.class);
+        List<String> violations = DtoConstraints.violations(dto);
+        if (dto.getUsername() == null || dto.getUsername().isBlank()) {
+            violations.add("Username is required");
+        }
+        if (dto.getUserEmail() == null || dto.getUserEmail().isBlank()) {
+            violations.add("User email is required");
+        }
+        String ref = record.path("restaurantRef").asText(null);
+        String restaurantId = record.path("restaurantId").asText(null);
+        if ((ref == null) == (restaurantId == null)) {
+            violations.add("Exactly one of restaurantRef and restaurantId is required");
+        }
+        LocalDateTime createdAt = LocalDateTime.now();
+        if (record.hasNonNull("createdAt")) {
+            try {
+                createdAt = LocalDateTime.parse(record.get("createdAt").asText());
+            } catch (DateTimeParseException e) {
+                violations.add("createdAt must be an ISO date-time like 2024-05-01T19:30:00");
+            }
+        }
+        if (!violations.isEmpty()) {
+            run.fail(line, String.join("; ", violations));
+            return;
+        }
+
+        Review review = Review.builder()
+                .id(UUID.randomUUID().toString())
+                // Null for a ref not seen yet, reported when the batch is written
+                .restaurantId(ref != null ? run.refs.get(ref) : restaurantId)
+                .username(dto.getUsername())
+                .userEmail(dto.getUserEmail().toLowerCase())
+                .content(dto.getContent())
+                .rating(dto.getRating())
+                .createdAt(createdAt)
+                .lastEditedAt(createdAt)
+                .build();
+
+        run.reviews.add(new PendingReview(line, ref, review));
+        if (run.reviews.size() >= batchSize) {
+            flushReviews(run);
+        }
+    }
+
+    private void flushRestaurants(ImportRun run) {
+        if (run.restaurants.isEmpty()) {
+            return;
+        }
+        List<Restaurant> restaurants = run.restaurants.stream().map(PendingRestaurant::restaurant).toList();
+        Map<Integer, String> errors = restaurantRepository.insertAllUnordered(restaurants);
+
+        for (int i = 0; i < run.restaurants.size(); i++) {
+            PendingRestaurant pending = run.restaurants.get(i);
+            if (errors.containsKey(i)) {
+                run.fail(pending.line(), "Restaurant could not be written: " + errors.get(i));
+                continue;
+            }
+            run.restaurantsCreated++;
+            run.known(pending.restaurant().getId());
+            restaurantSearchService.index(RestaurantSummary.from(pending.restaurant()));
+        }
+        run.restaurants.clear();
+    }
+
+    private void flushReviews(ImportRun run) {
+        if (run.reviews.isEmpty()) {
+            return;
+        }
+        // Reviews may point at restaurants still waiting in the restaurant batch
+        flushRestaurants(run);
+
+        // Check restaurant ids this import hasn't seen yet in one query
+        Set<String> unseen = new HashSet<>();
+        for (PendingReview pending : run.reviews) {
+            String id = pending.review().getRestaurantId();
+            if (id != null && !run.knownRestaurants.contains(id)) {
+                unseen.add(id);
+            }
+        }
+        if (!unseen.isEmpty()) {
+            restaurantRepository.findExistingIds(unseen).forEach(run::known);
+        }
+
+        List<PendingReview> resolved = new ArrayList<>(run.reviews.size());
+        for (PendingReview pending : run.reviews) {
+            Review review = pending.review();
+            if (review.getRestaurantId() == null) {
+                run.fail(pending.line(), "Unknown restaurantRef: " + pending.ref()
+                        + " (a restaurant's line must come before its reviews)");
+                continue;
+            }
+            if (!run.knownRestaurants.contains(review.getRestaurantId())) {
+                run.fail(pending.line(), pending.ref() != null
+                        ? "Restaurant of restaurantRef " + pending.ref() + " was not imported"
+                        : "Restaurant not found with id: " + review.getRestaurantId());
+                continue;
+            }
+            resolved.add(pending);
+        }
+
+        List<InsertOutcome> outcomes = reviewRepository.insertAllIfNotReviewed(
+                resolved.stream().map(PendingReview::review).toList());
+        for (int i = 0; i < resolved.size(); i++) {
+            PendingReview pending = resolved.get(i);
+            switch (outcomes.get(i)) {
+                case INSERTED -> {
+                    run.reviewsCreated++;
+                    run.newRatings.computeIfAbsent(pending.review().getRestaurantId(), id -> new HashMap<>())
+                            .merge(pending.review().getRating(), 1, Integer::sum);
+                }
+                case ALREADY_REVIEWED -> run.fail(pending.line(), "User has already reviewed this restaurant");
+                case FAILED -> run.fail(pending.line(), "Review could not be written");
+            }
+        }
+        run.reviews.clear();
+        if (run.newRatings.size() >= batchSize) {
+            flushRatings(run);
+        }
+    }
+
+    // Rating aggregates once per restaurant and flush, from the reviews this import added. Views are dropped
+    // on both sides: before, so no review page cached from before the import outlives its version bump.
+    private void flushRatings(ImportRun run) {
+        if (run.newRatings.isEmpty()) {
+            return;
+        }
+        viewCache.invalidateAll();
+        run.newRatings.forEach(restaurantRepository::addRatings);
+        run.newRatings.clear();
+    }
+
+    // State of one import. Beyond the current batch it keeps the refs, a bounded cache of restaurant ids
+    // known to exist, and the rating counts not yet flushed.
+    private class ImportRun {
+        long linesRead;
+        long restaurantsCreated;
+        long reviewsCreated;
+        long failedLines;
+        final List<ImportErrorDTO> errors = new ArrayList<>();
+
+        final List<PendingRestaurant> restaurants = new ArrayList<>();
+        final List<PendingReview> reviews = new ArrayList<>();
+        // ref -> restaurant id, assigned when the restaurant's line is read
+        final Map<String, String> refs = new HashMap<>();
+        final Set<String> knownRestaurants = new HashSet<>();
+        final Map<String, Map<Integer, Integer>> newRatings = new HashMap<>();
+
+        // Forgotten ids are looked up again when a later review needs them
+        void known(String restaurantId) {
+            if (knownRestaurants.size() >= maxRefs) {
+                knownRestaurants.clear();
+            }
+            knownRestaurants.add(restaurantId);
+        }
+
+        void fail(long line, String message) {
+            failedLines++;
+            if (errors.size() < maxReportedErrors) {
+                errors.add(ImportErrorDTO.builder().line(line).message(message).build());
+            }
+        }
+    }
+
+    private record PendingRestaurant(long line, Restaurant restaurant) {
+    }
+
+    private record PendingReview(long line, String ref, Review review) {
+    }
+
+    // Reads lines of at most maxChars; a longer one is skipped to its end and returned empty with tooLong set
+    private static final class LineReader implements Closeable {
+        private final Reader reader;
+        private final int maxChars;
+        private final StringBuilder line = new StringBuilder();
+        boolean tooLong;
+
+        LineReader(Reader reader, int maxChars) {
+            this.reader = reader;
+            this.maxChars = maxChars;
+        }
+
+        // The next line without its terminator, null at the end of the input
+        String next() throws IOException {
+            line.setLength(0);
+            tooLong = false;
+            int c = reader.read();
+            if (c == -1) {
+                return null;
+            }
+            for (; c != -1 && c != '\n'; c = reader.read()) {
+                if (tooLong) {
+                    continue;
+                }
+                if (line.length() == maxChars) {
+                    tooLong = true;
+                    line.setLength(0);
+                    continue;
+                }
+                line.append((char) c);
+            }
+            if (!line.isEmpty() && line.charAt(line.length() - 1) == '\r') {
+                line.setLength(line.length() - 1);
+            }
+            return line.toString();
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+}
@@ -0,0 +1,295 @@
+package com.shivangjaswal.RestaurantReview.Service;
+
+import com.mongodb.MongoCommandException;
+import com.mongodb.MongoServerException;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.OperationType;
+import com.mongodb.client.model.changestream.UpdateDescription;
+import com.shivangjaswal.RestaurantReview.Entity.RestaurantSummary;
+import com.shivangjaswal.RestaurantReview.Respository.LocalWrites;
+import com.shivangjaswal.RestaurantReview.Respository.RestaurantRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Keeps the in-process read models of every replica in step with writes made by the others. One thread
+ * tails a Mongo change stream over the restaurants, reviews and users collections and applies each change
+ * locally: the view cache, search index, leaderboard and nearby cache for restaurants, the single-review
+ * view for reviews, and any registered listeners for users. Every review write also bumps its restaurant's
+ * version, so the restaurant's event takes care of its review pages and ETags.
+ *
+ * The node that made a write has already updated its own read models, so it skips the echo of its own
+ * restaurant writes (see LocalWrites). A version-only bump (a review's text edited) only drops the views,
+ * and the nearby cache loses just the cells around the restaurant. Change streams need a replica set; against a standalone server (or with
+ * app.cache.invalidation.mode=local) the bus stays off and each node only sees its own writes, which is
+ * what a single instance needs. After a gap it can't resume from, the node drops all its cached views.
+ */
+@Component
+@Slf4j
+public class CacheInvalidationBus {
+
+    // The server's "$changeStream is only supported on replica sets" error
+    private static final int CHANGE_STREAMS_UNSUPPORTED = 40573;
+
+    private static final String RESTAURANTS = "restaurants";
+    private static final String REVIEWS = "reviews";
+    private static final String USERS = "users";
+    // Fields a version-only bump writes; nothing but the cached views shows them
+    private static final Set<String> VERSION_FIELDS = Set.of("version", "updatedAt");
+
+    private final MongoTemplate mongoTemplate;
+    private final RestaurantRepository restaurantRepository;
+    private final ViewCache viewCache;
+    private final RestaurantSearchService restaurantSearchService;
+    private final LeaderboardService leaderboardService;
+    private final NearbySearchCache nearbySearchCache;
+    private final LocalWrites localWrites;
+    private final MeterRegistry meterRegistry;
+    private final String mode;
+    private final long retryDelayMs;
+
+    private final List<Consumer<String>> userListeners = new CopyOnWriteArrayList<>();
+    private final Timer lag;
+    private Thread watcher;
+    private volatile boolean running;
+    private BsonDocument resumeToken;
+
+    public CacheInvalidationBus(MongoTemplate mongoTemplate,
+                                RestaurantRepository restaurantRepository,
+                                ViewCache viewCache,
+                                RestaurantSearchService restaurantSearchService,
+                                LeaderboardService leaderboardService,
+                                NearbySearchCache nearbySearchCache,
+                                LocalWrites localWrites,
+                                MeterRegistry meterRegistry,
+                                @Value("${app.cache.invalidation.mode:change-stream}") String mode,
+                                @Value("${app.cache.invalidation.retry-delay-ms:1000}") long retryDelayMs) {
+        this.mongoTemplate = mongoTemplate;
+        this.restaurantRepository = restaurantRepository;
+        this.viewCache = viewCache;
+        this.restaurantSearchService = restaurantSearchService;
+        this.leaderboardService = leaderboardService;
+        this.nearbySearchCache = nearbySearchCache;
+        this.localWrites = localWrites;
+        this.meterRegistry = meterRegistry;
+        this.mode = mode;
+        this.retryDelayMs = retryDelayMs;
+        this.lag = meterRegistry.timer("cache.invalidation.lag");
+    }
+
+    @PostConstruct
+    void start() {
+        if ("local".equalsIgnoreCase(mode)) {
+            log.info("Cache invalidation is local only");
+            return;
+        }
+        running = true;
+        watcher = new Thread(this::watch, "cache-invalidation");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    // Called with the id of every user changed on any node, for caches holding user data
+    public void onUserChange(Consumer<String> listener) {
+        userListeners.add(listener);
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        running = false;
+        if (watcher != null) {
+            watcher.join(retryDelayMs * 2);
+        }
+    }
+
+    private void watch() {
+        boolean reconnecting = false;
+        while (running) {
+            try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor = open(reconnecting)) {
+                if (reconnecting) {
+                    log.info("Cache invalidation stream reconnected");
+                }
+                while (running) {
+                    ChangeStreamDocument<Document> change = cursor.tryNext();
+                    if (change != null) {
+                        apply(change);
+                    }
+                    // Advances even while nothing changes, so a reconnect after a quiet spell still resumes
+                    if (cursor.getResumeToken() != null) {
+                        resumeToken = cursor.getResumeToken();
+                    }
+                }
+            } catch (MongoCommandException e) {
+                if (e.getErrorCode() == CHANGE_STREAMS_UNSUPPORTED) {
+                    log.warn("MongoDB is not a replica set, cache invalidation is local only");
+                    return;
+                }
+                lostStream(e);
+            } catch (RuntimeException e) {
+                lostStream(e);
+            }
+            reconnecting = true;
+            pause();
+        }
+    }
+
+    private MongoChangeStreamCursor<ChangeStreamDocument<Document>> open(boolean reconnecting) {
+        var stream = mongoTemplate.getDb()
+                .watch(List.of(Aggregates.match(Filters.in("ns.coll", List.of(RESTAURANTS, REVIEWS, USERS)))))
+                .maxAwaitTime(retryDelayMs, TimeUnit.MILLISECONDS);
+        if (resumeToken != null) {
+            try {
+                return stream.resumeAfter(resumeToken).cursor();
+            } catch (MongoServerException e) {
+                log.warn("Could not resume cache invalidation stream: {}", e.getMessage());
+                resumeToken = null;
+            }
+        }
+        if (reconnecting) {
+            // Events since the last stream may be lost, so nothing cached can be trusted
+            viewCache.invalidateAll();
+            nearbySearchCache.invalidateAll();
+        }
+        return stream.cursor();
+    }
+
+    void apply(ChangeStreamDocument<Document> change) {
+        if (change.getWallTime() != null) {
+            lag.record(Math.max(0, System.currentTimeMillis() - change.getWallTime().getValue()), TimeUnit.MILLISECONDS);
+        }
+
+        String collection = change.getNamespace() != null ? change.getNamespace().getCollectionName() : null;
+        String id = change.getDocumentKey() != null ? idOf(change.getDocumentKey().get("_id")) : null;
+        if (collection == null || id == null) {
+            // drop, rename or invalidate: no single document to evict
+            viewCache.invalidateAll();
+            nearbySearchCache.invalidateAll();
+            return;
+        }
+        meterRegistry.counter("cache.invalidation.events", "collection", collection).increment();
+
+        switch (collection) {
+            case RESTAURANTS -> restaurantChanged(id, change);
+            case REVIEWS -> viewCache.invalidateReview(id);
+            case USERS -> userListeners.forEach(listener -> listener.accept(id));
+            default -> {
+            }
+        }
+    }
+
+    // Same order as a local write: review pages, then the read models, then the restaurant and its version
+    private void restaurantChanged(String id, ChangeStreamDocument<Document> change) {
+        OperationType operation = change.getOperationType();
+        if (operation == OperationType.DELETE) {
+            // A delete has no version to recognize, but replaying this node's own is cheap
+            viewCache.invalidateAllReviews(id);
+            restaurantSearchService.remove(id);
+            leaderboardService.remove(id);
+            nearbySearchCache.invalidateListing(id);
+            viewCache.invalidateRestaurant(id);
+            return;
+        }
+
+        Long version = versionOf(change);
+        if (version != null && localWrites.consume(id, version)) {
+            meterRegistry.counter("cache.invalidation.own").increment();
+            return;
+        }
+
+        viewCache.invalidateReviews(id, null);
+        UpdateDescription update = operation == OperationType.UPDATE ? change.getUpdateDescription() : null;
+        if (update != null && update.getRemovedFields().isEmpty()
+                && VERSION_FIELDS.containsAll(update.getUpdatedFields().keySet())) {
+            viewCache.invalidateRestaurant(id);
+            return;
+        }
+
+        // An insert carries the whole document, anything else is read back
+        RestaurantSummary current = operation == OperationType.INSERT && change.getFullDocument() != null
+                ? mongoTemplate.getConverter().read(RestaurantSummary.class, change.getFullDocument())
+                : restaurantRepository.findSummariesByIds(List.of(id)).stream().findFirst().orElse(null);
+        if (current != null) {
+            restaurantSearchService.index(current);
+            leaderboardService.update(current);
+        }
+
+        // Cells that list it where it was, unless it can't have moved, then the cells around where it is now
+        if (operation != OperationType.INSERT && (update == null || moved(update) || current == null)) {
+            nearbySearchCache.invalidateListing(id);
+        }
+        if (current != null && current.getLocation() != null) {
+            nearbySearchCache.invalidateAround(current);
+        } else if (operation == OperationType.INSERT) {
+            nearbySearchCache.invalidateAll();
+        }
+        viewCache.invalidateRestaurant(id);
+    }
+
+    // The version a restaurant write left behind: every write bumps it, so the event carries it
+    private static Long versionOf(ChangeStreamDocument<Document> change) {
+        if (change.getUpdateDescription() != null) {
+            BsonValue version = change.getUpdateDescription().getUpdatedFields().get("version");
+            return version != null && version.isNumber() ? version.asNumber().longValue() : null;
+        }
+        if (change.getFullDocument() != null && change.getFullDocument().get("version") instanceof Number version) {
+            return version.longValue();
+        }
+        return null;
+    }
+
+    private static boolean moved(UpdateDescription update) {
+        return update.getUpdatedFields().keySet().stream().anyMatch(CacheInvalidationBus::isLocation)
+                || update.getRemovedFields().stream().anyMatch(CacheInvalidationBus::isLocation);
+    }
+
+    private static boolean isLocation(String field) {
+        return field.equals("location") || field.startsWith("location.");
+    }
+
+    private void lostStream(RuntimeException e) {
+        if (running) {
+            log.warn("Cache invalidation stream failed, reconnecting: {}", e.getMessage());
+        }
+    }
+
+    private void pause() {
+        try {
+            Thread.sleep(retryDelayMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+
+    // ObjectId keys as the hex strings the caches use, string keys as they are
+    private static String idOf(BsonValue id) {
+        if (id == null) {
+            return null;
+        }
+        if (id.isObjectId()) {
+            return id.asObjectId().getValue().toHexString();
+        }
+        if (id.isString()) {
+            return id.asString().getValue();
+        }
+        return id.toString();
+    }
+}
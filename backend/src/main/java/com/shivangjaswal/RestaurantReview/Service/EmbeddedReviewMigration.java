@@ -0,0 +1,102 @@
+package com.shivangjaswal.RestaurantReview.Service;
+
+import com.shivangjaswal.RestaurantReview.Entity.Restaurant;
+import com.shivangjaswal.RestaurantReview.Entity.Review;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * One-off move of the reviews that used to be embedded in restaurant documents into the reviews
+ * collection. Restaurants are streamed from a cursor, their reviews upserted by id in unordered bulk
+ * batches and the embedded array unset once its batch is written, so memory stays flat and a rerun
+ * after an interruption just picks up what is left. A no-op once nothing is embedded anymore.
+ */
+@Component
+@Order(1)
+@ConditionalOnProperty(name = "app.migration.embedded-reviews", havingValue = "true", matchIfMissing = true)
+@RequiredArgsConstructor
+@Slf4j
+public class EmbeddedReviewMigration implements ApplicationRunner {
+
+    private static final int BATCH_SIZE = 500;
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        Query query = new Query(Criteria.where("reviews").exists(true));
+        query.fields().include("_id").include("reviews");
+
+        List<Review> pendingReviews = new ArrayList<>();
+        List<Object> pendingRestaurants = new ArrayList<>();
+        int migratedRestaurants = 0;
+        int migratedReviews = 0;
+
+        try (Stream<Document> restaurants = mongoTemplate.stream(query, Document.class,
+                mongoTemplate.getCollectionName(Restaurant.class))) {
+            for (Document restaurant : (Iterable<Document>) restaurants::iterator) {
+                String restaurantId = restaurant.get("_id").toString();
+                for (Document embedded : restaurant.getList("reviews", Document.class, List.of())) {
+                    Review review = mongoTemplate.getConverter().read(Review.class, embedded);
+                    review.setRestaurantId(restaurantId);
+                    if (review.getId() == null) {
+                        review.setId(UUID.randomUUID().toString());
+                    }
+                    if (review.getUserEmail() != null) {
+                        review.setUserEmail(review.getUserEmail().toLowerCase());
+                    }
+                    pendingReviews.add(review);
+                }
+                pendingRestaurants.add(restaurant.get("_id"));
+
+                if (pendingReviews.size() >= BATCH_SIZE) {
+                    migratedReviews += flush(pendingReviews, pendingRestaurants);
+                    migratedRestaurants += pendingRestaurants.size();
+                    pendingReviews.clear();
+                    pendingRestaurants.clear();
+                }
+            }
+        }
+        migratedReviews += flush(pendingReviews, pendingRestaurants);
+        migratedRestaurants += pendingRestaurants.size();
+
+        if (migratedRestaurants > 0) {
+            log.info("Moved {} embedded reviews of {} restaurants into the reviews collection",
+                    migratedReviews, migratedRestaurants);
+        }
+    }
+
+    // Write the batch of reviews, then drop the embedded copies of the restaurants they came from
+    private int flush(List<Review> reviews, List<Object> restaurantIds) {
+        if (!reviews.isEmpty()) {
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Review.class);
+            for (Review review : reviews) {
+                bulk.replaceOne(new Query(Criteria.where("_id").is(review.getId())), review,
+                        FindAndReplaceOptions.options().upsert());
+            }
+            bulk.execute();
+        }
+        if (!restaurantIds.isEmpty()) {
+            mongoTemplate.updateMulti(new Query(Criteria.where("_id").in(restaurantIds)),
+                    new Update().unset("reviews"), Restaurant.class);
+        }
+        return reviews.size();
+    }
+}
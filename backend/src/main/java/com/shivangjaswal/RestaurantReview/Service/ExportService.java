@@ -0,0 +1,283 @@
+package com.shivangjaswal.RestaurantReview.Service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shivangjaswal.RestaurantReview.Entity.RestaurantSummary;
+import com.shivangjaswal.RestaurantReview.Entity.Review;
+import com.shivangjaswal.RestaurantReview.Respository.RestaurantRepository;
+import com.shivangjaswal.RestaurantReview.Respository.ReviewRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StreamUtils;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streams the whole restaurant catalog, optionally with every review, as NDJSON or CSV. Restaurants come
+ * from a Mongo cursor in chunks; the reviews of a chunk come from a second cursor grouped by restaurant and
+ * are merged in as they are read. Nothing is collected beyond one chunk of restaurants, so heap use stays
+ * flat however large the collections are.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ExportService {
+
+    // Restaurants per reviews query when exporting with reviews
+    private static final int CHUNK_SIZE = 500;
+
+    private static final String[] RESTAURANT_COLUMNS = {
+            "id", "name", "description", "cuisineType", "address", "city", "phoneNumber",
+            "latitude", "longitude", "averageRating", "totalReviews", "createdAt", "updatedAt"};
+    private static final String[] REVIEW_COLUMNS = {
+            "reviewId", "username", "userEmail", "rating", "content", "reviewCreatedAt", "reviewLastEditedAt"};
+
+    private final RestaurantRepository restaurantRepository;
+    private final ReviewRepository reviewRepository;
+    private final ObjectMapper objectMapper;
+
+    public enum Format {
+        NDJSON, CSV;
+
+        public static Format parse(String value) {
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unsupported export format: " + value + ", use ndjson or csv");
+            }
+        }
+    }
+
+    // Leaves out open, the caller owns it; the gzip stream is closed (finished, its deflater freed) either way
+    public void exportRestaurants(OutputStream out, Format format, boolean withReviews, boolean gzip) throws IOException {
+        try (OutputStream target = gzip
+                ? new GZIPOutputStream(StreamUtils.nonClosing(out), 64 * 1024)
+                : StreamUtils.nonClosing(out)) {
+            writeRestaurants(target, format, withReviews);
+        }
+        out.flush();
+    }
+
+    private void writeRestaurants(OutputStream out, Format format, boolean withReviews) throws IOException {
+        RowWriter writer = format == Format.NDJSON ? new NdjsonWriter(out) : new CsvWriter(out, withReviews);
+        long exported = 0;
+
+        try (Stream<RestaurantSummary> restaurants = restaurantRepository.streamAllSummaries()) {
+            Iterator<RestaurantSummary> iterator = restaurants.iterator();
+            List<RestaurantSummary> chunk = new ArrayList<>(CHUNK_SIZE);
+            while (iterator.hasNext()) {
+                chunk.add(iterator.next());
+                if (chunk.size() == CHUNK_SIZE || !iterator.hasNext()) {
+                    writeChunk(writer, chunk, withReviews);
+                    exported += chunk.size();
+                    chunk.clear();
+                }
+            }
+        }
+        writer.finish();
+        log.info("Exported {} restaurants as {}{}", exported, format, withReviews ? " with reviews" : "");
+    }
+
+    private void writeChunk(RowWriter writer, List<RestaurantSummary> chunk, boolean withReviews) throws IOException {
+        if (!withReviews) {
+            for (RestaurantSummary restaurant : chunk) {
+                writer.write(restaurant, null);
+            }
+            return;
+        }
+
+        // Same order as the reviews cursor, so each restaurant's reviews are the next run of it
+        chunk.sort(Comparator.comparing(RestaurantSummary::getId));
+        try (Stream<Review> reviews = reviewRepository.streamByRestaurants(
+                chunk.stream().map(RestaurantSummary::getId).toList())) {
+            GroupedReviews grouped = new GroupedReviews(reviews.iterator());
+            for (RestaurantSummary restaurant : chunk) {
+                writer.write(restaurant, grouped.of(restaurant.getId()));
+            }
+        }
+    }
+
+    // Hands out the reviews cursor one restaurant at a time without buffering it
+    private static class GroupedReviews {
+        private final Iterator<Review> cursor;
+        private Review next;
+
+        GroupedReviews(Iterator<Review> cursor) {
+            this.cursor = cursor;
+            this.next = cursor.hasNext() ? cursor.next() : null;
+        }
+
+        Iterator<Review> of(String restaurantId) {
+            // Drop anything sorting before this restaurant (reviews of a restaurant deleted mid-export)
+            while (next != null && next.getRestaurantId().compareTo(restaurantId) < 0) {
+                advance();
+            }
+            return new Iterator<>() {
+                @Override
+                public boolean hasNext() {
+                    return next != null && next.getRestaurantId().equals(restaurantId);
+                }
+
+                @Override
+                public Review next() {
+                    Review review = next;
+                    advance();
+                    return review;
+                }
+            };
+        }
+
+        private void advance() {
+            next = cursor.hasNext() ? cursor.next() : null;
+        }
+    }
+
+    private interface RowWriter {
+        // reviews is null when exporting without reviews
+        void write(RestaurantSummary restaurant, Iterator<Review> reviews) throws IOException;
+
+        void finish() throws IOException;
+    }
+
+    // One JSON object per line; with reviews, each restaurant carries a "reviews" array
+    private class NdjsonWriter implements RowWriter {
+        private final JsonGenerator generator;
+
+        NdjsonWriter(OutputStream out) throws IOException {
+            generator = objectMapper.getFactory().createGenerator(out);
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        }
+
+        @Override
+        public void write(RestaurantSummary restaurant, Iterator<Review> reviews) throws IOException {
+            generator.writeStartObject();
+            generator.writeStringField("id", restaurant.getId());
+            generator.writeStringField("name", restaurant.getName());
+            generator.writeStringField("description", restaurant.getDescription());
+            generator.writeStringField("cuisineType", restaurant.getCuisineType());
+            generator.writeStringField("address", restaurant.getAddress());
+            generator.writeStringField("city", restaurant.getCity());
+            generator.writeStringField("phoneNumber", restaurant.getPhoneNumber());
+            generator.writeObjectField("latitude", restaurant.getLocation() != null ? restaurant.getLocation().getY() : null);
+            generator.writeObjectField("longitude", restaurant.getLocation() != null ? restaurant.getLocation().getX() : null);
+            generator.writeObjectField("averageRating", restaurant.getAverageRating());
+            generator.writeObjectField("totalReviews", restaurant.getTotalReviews());
+            generator.writeObjectField("ratingHistogram", restaurant.getRatingHistogram());
+            generator.writeObjectField("photoUrls", restaurant.getPhotoUrls());
+            generator.writeObjectField("createdAt", restaurant.getCreatedAt());
+            generator.writeObjectField("updatedAt", restaurant.getUpdatedAt());
+            if (reviews != null) {
+                generator.writeArrayFieldStart("reviews");
+                while (reviews.hasNext()) {
+                    Review review = reviews.next();
+                    generator.writeStartObject();
+                    generator.writeStringField("id", review.getId());
+                    generator.writeStringField("username", review.getUsername());
+                    generator.writeStringField("userEmail", review.getUserEmail());
+                    generator.writeObjectField("rating", review.getRating());
+                    generator.writeStringField("content", review.getContent());
+                    generator.writeObjectField("photoUrls", review.getPhotoUrls());
+                    generator.writeObjectField("createdAt", review.getCreatedAt());
+                    generator.writeObjectField("lastEditedAt", review.getLastEditedAt());
+                    generator.writeEndObject();
+                }
+                generator.writeEndArray();
+            }
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        public void finish() throws IOException {
+            generator.close();
+        }
+    }
+
+    // Header row, then one row per restaurant; with reviews, one row per review with the restaurant
+    // columns repeated (a restaurant without reviews still gets one row, review columns empty)
+    private static class CsvWriter implements RowWriter {
+        private final Writer out;
+
+        CsvWriter(OutputStream out, boolean withReviews) throws IOException {
+            this.out = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            List<String> header = new ArrayList<>(List.of(RESTAURANT_COLUMNS));
+            if (withReviews) {
+                header.addAll(List.of(REVIEW_COLUMNS));
+            }
+            row(header.toArray());
+        }
+
+        @Override
+        public void write(RestaurantSummary restaurant, Iterator<Review> reviews) throws IOException {
+            Object[] columns = {
+                    restaurant.getId(), restaurant.getName(), restaurant.getDescription(), restaurant.getCuisineType(),
+                    restaurant.getAddress(), restaurant.getCity(), restaurant.getPhoneNumber(),
+                    restaurant.getLocation() != null ? restaurant.getLocation().getY() : null,
+                    restaurant.getLocation() != null ? restaurant.getLocation().getX() : null,
+                    restaurant.getAverageRating(), restaurant.getTotalReviews(),
+                    restaurant.getCreatedAt(), restaurant.getUpdatedAt()};
+            if (reviews == null) {
+                row(columns);
+                return;
+            }
+
+            boolean any = false;
+            while (reviews.hasNext()) {
+                Review review = reviews.next();
+                any = true;
+                row(concat(columns, review.getId(), review.getUsername(), review.getUserEmail(), review.getRating(),
+                        review.getContent(), review.getCreatedAt(), review.getLastEditedAt()));
+            }
+            if (!any) {
+                row(concat(columns, new Object[REVIEW_COLUMNS.length]));
+            }
+        }
+
+        @Override
+        public void finish() throws IOException {
+            out.flush();
+        }
+
+        private void row(Object[] values) throws IOException {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    out.write(',');
+                }
+                out.write(escape(values[i]));
+            }
+            out.write("\r\n");
+        }
+
+        private static Object[] concat(Object[] first, Object... second) {
+            Object[] all = new Object[first.length + second.length];
+            System.arraycopy(first, 0, all, 0, first.length);
+            System.arraycopy(second, 0, all, first.length, second.length);
+            return all;
+        }
+
+        // RFC 4180: quote fields holding a separator, quote or line break, doubling inner quotes
+        private static String escape(Object value) {
+            if (value == null) {
+                return "";
+            }
+            String text = value.toString();
+            if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+                return text;
+            }
+            return '"' + text.replace("\"", "\"\"") + '"';
+        }
+    }
+}
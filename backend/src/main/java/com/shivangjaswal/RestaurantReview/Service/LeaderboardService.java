@@ -0,0 +1,112 @@
+package com.shivangjaswal.RestaurantReview.Service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.shivangjaswal.RestaurantReview.Entity.RestaurantSummary;
+import com.shivangjaswal.RestaurantReview.Respository.RestaurantRepository;
+import com.shivangjaswal.RestaurantReview.Search.Leaderboard;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Top-rated restaurants per scope (global, per cuisine, per city), kept in memory. A scope is
+ * loaded from the database the first time it is asked for, then updated in place on every
+ * rating or restaurant change. At most app.leaderboard.max-scopes boards are kept, least recently
+ * used first out, since any cuisine or city string a client sends names a scope.
+ */
+@Service
+@Slf4j
+public class LeaderboardService {
+
+    private static final String GLOBAL = "global";
+
+    private final RestaurantRepository restaurantRepository;
+    private final int capacity;
+    private final Cache<String, Leaderboard> boards;
+
+    public LeaderboardService(RestaurantRepository restaurantRepository,
+                              MeterRegistry meterRegistry,
+                              @Value("${app.leaderboard.size:100}") int capacity,
+                              @Value("${app.leaderboard.max-scopes:1000}") long maxScopes) {
+        this.restaurantRepository = restaurantRepository;
+        this.capacity = capacity;
+        this.boards = Caffeine.newBuilder()
+                .maximumSize(maxScopes)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, boards, "leaderboards");
+    }
+
+    public List<RestaurantSummary> top(String cuisineType, String city, int limit) {
+        // Normalized once, the same value names the board and goes into the query
+        String cuisine = normalize(cuisineType);
+        String place = cuisine == null ? normalize(city) : null;
+        String scope = scope(cuisine, place);
+        Leaderboard board = boards.get(scope, s -> new Leaderboard(capacity));
+        if (board.isStale()) {
+            // Holding the board's lock through the read queues concurrent updates behind the load
+            synchronized (board) {
+                if (board.isStale()) {
+                    board.load(restaurantRepository.findTopRated(cuisine, place, capacity));
+                    log.debug("Loaded leaderboard {}", scope);
+                }
+            }
+        }
+        return board.top(Math.min(limit, capacity));
+    }
+
+    // Called after a restaurant's rating or details change
+    public void update(RestaurantSummary restaurant) {
+        for (Map.Entry<String, Leaderboard> entry : boards.asMap().entrySet()) {
+            if (inScope(entry.getKey(), restaurant)) {
+                entry.getValue().update(restaurant);
+            } else {
+                // Its cuisine or city may have changed
+                entry.getValue().remove(restaurant.getId());
+            }
+        }
+    }
+
+    public void remove(String id) {
+        boards.asMap().values().forEach(board -> board.remove(id));
+    }
+
+    // Drop every loaded board, the next read of a scope reloads it
+    public void invalidateAll() {
+        boards.invalidateAll();
+    }
+
+    // Takes normalized values
+    private static String scope(String cuisine, String city) {
+        if (cuisine != null) {
+            return "cuisine:" + cuisine;
+        }
+        if (city != null) {
+            return "city:" + city;
+        }
+        return GLOBAL;
+    }
+
+    private static boolean inScope(String scope, RestaurantSummary restaurant) {
+        String cuisine = normalize(restaurant.getCuisineType());
+        String city = normalize(restaurant.getCity());
+        return scope.equals(GLOBAL)
+                || cuisine != null && scope.equals(scope(cuisine, null))
+                || city != null && scope.equals(scope(null, city));
+    }
+
+    // Trimmed and lower-cased (the query collation ignores case); blank counts as not given
+    private static String normalize(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        return value.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,148 @@
+package com.shivangjaswal.RestaurantReview.Service;
+
+import com.shivangjaswal.RestaurantReview.Entity.RestaurantSummary;
+import com.shivangjaswal.RestaurantReview.Respository.RestaurantRepository;
+import com.shivangjaswal.RestaurantReview.Utils.GeoHash;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.geo.Distance;
+import org.springframework.data.geo.GeoResult;
+import org.springframework.data.geo.Metrics;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Geohash grid cache in front of the $geoNear query. Lookups are snapped to the center of their
+ * geohash cell (~150 m at precision 7) and the database is asked for everything within the search
+ * radius plus half the cell diagonal, so one cached candidate list serves every point in the cell.
+ * Each request then re-ranks the candidates by exact distance from its own point. A candidate list cut
+ * off at its limit only answers for the distances it provably covers (its farthest candidate from the
+ * center, less the cell slack); a request reaching past that goes to $geoNear from its own point.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class NearbySearchCache {
+
+    private static final int CELL_PRECISION = 7;
+    private static final int RADIUS_CANDIDATE_LIMIT = 500;
+
+    private final RestaurantRepository restaurantRepository;
+
+    @Value("${app.geo.cache-ttl-ms:60000}")
+    private long ttlMs;
+
+    @Value("${app.geo.cache-max-cells:10000}")
+    private int maxCells;
+
+    // Least recently used cells are dropped first once maxCells is reached
+    private final Map<String, CachedCell> cells = Collections.synchronizedMap(
+            new LinkedHashMap<>(256, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, CachedCell> eldest) {
+                    return size() > maxCells;
+                }
+            });
+
+    // Restaurants within radiusKm, or the k nearest (optionally within radiusKm), closest first
+    public List<GeoResult<RestaurantSummary>> nearby(double latitude, double longitude, Double radiusKm, Integer k, int maxResults) {
+        String cell = GeoHash.encode(latitude, longitude, CELL_PRECISION);
+        double[] bounds = GeoHash.bounds(cell);
+        double centerLat = (bounds[0] + bounds[2]) / 2;
+        double centerLng = (bounds[1] + bounds[3]) / 2;
+        double slackKm = GeoHash.distanceKm(centerLat, centerLng, bounds[2], bounds[3]);
+
+        String key = cell + "|" + radiusKm + "|" + k;
+        CachedCell cached = cells.get(key);
+        if (cached == null || cached.expiresAt <= System.currentTimeMillis()) {
+            Double maxDistance = radiusKm != null ? radiusKm + slackKm : null;
+            // Nearest-k around the cell center is re-ranked from the real point, fetch extra to cover the shift
+            int limit = k != null ? Math.min(k * 2 + 10, RADIUS_CANDIDATE_LIMIT) : RADIUS_CANDIDATE_LIMIT;
+            cached = new CachedCell(centerLat, centerLng, restaurantRepository.findNear(centerLat, centerLng, maxDistance, limit),
+                    limit, System.currentTimeMillis() + ttlMs);
+            cells.put(key, cached);
+            log.debug("Nearby cache miss for cell {} ({} candidates)", cell, cached.candidates.size());
+        }
+
+        int limit = k != null ? Math.min(k, maxResults) : maxResults;
+        List<GeoResult<RestaurantSummary>> results = cached.candidates.stream()
+                .map(candidate -> withDistanceFrom(candidate.getContent(), latitude, longitude))
+                .filter(result -> radiusKm == null || result.getDistance().getValue() <= radiusKm)
+                .sorted(Comparator.comparingDouble(result -> result.getDistance().getValue()))
+                .limit(limit)
+                .collect(Collectors.toList());
+
+        // A full list left out everything past its farthest candidate, which from this point may be as close
+        // as that distance less the slack: beyond it (or with too few results inside it) ask from the point
+        if (cached.truncated) {
+            double exactKm = cached.farthestKm - slackKm;
+            boolean covered = results.size() == limit
+                    ? results.get(limit - 1).getDistance().getValue() <= exactKm
+                    : radiusKm != null && radiusKm <= exactKm;
+            if (!covered) {
+                log.debug("Nearby candidates of cell {} don't cover the request, querying from the point", cell);
+                return restaurantRepository.findNear(latitude, longitude, radiusKm, limit);
+            }
+        }
+        return results;
+    }
+
+    // Called on restaurant writes, cached cells may hold the old location or details
+    public void invalidateAll() {
+        cells.clear();
+    }
+
+    // Called when a restaurant's rating changes: drops only the cells whose candidates can include it
+    public void invalidateAround(RestaurantSummary restaurant) {
+        if (restaurant.getLocation() == null) {
+            return;
+        }
+        double latitude = restaurant.getLocation().getY();
+        double longitude = restaurant.getLocation().getX();
+        synchronized (cells) {
+            cells.values().removeIf(cached -> !cached.candidates.isEmpty()
+                    && GeoHash.distanceKm(cached.centerLat, cached.centerLng, latitude, longitude) <= cached.farthestKm);
+        }
+    }
+
+    // Called when a restaurant moves or goes: drops the cells that list it where it was
+    public void invalidateListing(String id) {
+        synchronized (cells) {
+            cells.values().removeIf(cached -> cached.candidates.stream()
+                    .anyMatch(candidate -> id.equals(candidate.getContent().getId())));
+        }
+    }
+
+    private GeoResult<RestaurantSummary> withDistanceFrom(RestaurantSummary restaurant, double latitude, double longitude) {
+        double distance = GeoHash.distanceKm(latitude, longitude,
+                restaurant.getLocation().getY(), restaurant.getLocation().getX());
+        return new GeoResult<>(restaurant, new Distance(distance, Metrics.KILOMETERS));
+    }
+
+    private static class CachedCell {
+        private final double centerLat;
+        private final double centerLng;
+        private final List<GeoResult<RestaurantSummary>> candidates;
+        // The query hit its limit, so restaurants farther than farthestKm from the center may be missing
+        private final boolean truncated;
+        private final double farthestKm;
+        private final long expiresAt;
+
+        CachedCell(double centerLat, double centerLng, List<GeoResult<RestaurantSummary>> candidates, int limit, long expiresAt) {
+            this.centerLat = centerLat;
+            this.centerLng = centerLng;
+            this.candidates = candidates;
+            this.truncated = candidates.size() >= limit;
+            // $geoNear returns them closest first
+            this.farthestKm = candidates.isEmpty() ? 0 : candidates.get(candidates.size() - 1).getDistance().getValue();
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.shivangjaswal.RestaurantReview.Service;
+
+import com.shivangjaswal.RestaurantReview.Entity.Restaurant;
+import com.shivangjaswal.RestaurantReview.Respository.RestaurantRepository;
+import com.shivangjaswal.RestaurantReview.Respository.ReviewRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.util.stream.Stream;
+
+/**
+ * Seeds the running rating aggregates (sum, count, star histogram) of restaurants written before they
+ * existed, counting their reviews once. Runs after the embedded review migration so moved reviews are
+ * included, and only touches restaurants that have no aggregates yet, so later starts do nothing.
+ */
+@Component
+@Order(2)
+@RequiredArgsConstructor
+@Slf4j
+public class RatingAggregateBackfill implements ApplicationRunner {
+
+    private final MongoTemplate mongoTemplate;
+    private final RestaurantRepository restaurantRepository;
+    private final ReviewRepository reviewRepository;
+    private final LeaderboardService leaderboardService;
+    private final ViewCache viewCache;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        Query query = new Query(Criteria.where("ratingSum").exists(false));
+        query.fields().include("_id");
+
+        int backfilled = 0;
+        try (Stream<Document> restaurants = mongoTemplate.stream(query, Document.class,
+                mongoTemplate.getCollectionName(Restaurant.class))) {
+            for (Document restaurant : (Iterable<Document>) restaurants::iterator) {
+                String id = restaurant.get("_id").toString();
+                if (restaurantRepository.initRatingAggregates(id, reviewRepository.ratingCounts(id))) {
+                    backfilled++;
+                }
+            }
+        }
+
+        if (backfilled > 0) {
+            log.info("Backfilled rating aggregates of {} restaurants", backfilled);
+            leaderboardService.invalidateAll();
+            viewCache.invalidateAll();
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.shivangjaswal.RestaurantReview.Service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight for reads: concurrent callers asking for the same thing share one in-flight database call
+ * and get its result (or its exception). Nothing is kept once the call finishes, so this only collapses
+ * bursts; the cached views (ViewCache) already get the same from Caffeine, which runs one load per key.
+ *
+ * The key includes the write epoch (ViewCache's collection version), so a caller that starts after a write
+ * never joins a call that started before it and always reads its own writes. Results are shared between
+ * callers and must not be modified.
+ *
+ * Metrics: reads.coalescing.calls (database calls made) and reads.coalescing.joined (callers served by
+ * someone else's call), both tagged by operation.
+ */
+@Component
+public class RequestCoalescer {
+
+    private final MeterRegistry meterRegistry;
+    private final ViewCache viewCache;
+    private final Map<Key, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    public RequestCoalescer(MeterRegistry meterRegistry, ViewCache viewCache) {
+        this.meterRegistry = meterRegistry;
+        this.viewCache = viewCache;
+        meterRegistry.gaugeMapSize("reads.coalescing.in_flight", List.of(), inFlight);
+    }
+
+    // args identify the read within the operation; nulls are fine
+    @SuppressWarnings("unchecked")
+    public <T> T coalesce(String operation, Supplier<T> call, Object... args) {
+        Key key = new Key(operation, viewCache.collectionVersion(), Arrays.asList(args));
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        CompletableFuture<Object> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            meterRegistry.counter("reads.coalescing.joined", "operation", operation).increment();
+            return (T) await(running);
+        }
+
+        meterRegistry.counter("reads.coalescing.calls", "operation", operation).increment();
+        try {
+            T result = call.get();
+            mine.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    private static Object await(CompletableFuture<Object> running) {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            // Rethrow what the call itself threw, so callers handle it the same way
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private record Key(String operation, long epoch, List<Object> args) {
+    }
+}
@@ -0,0 +1,218 @@
+package com.shivangjaswal.RestaurantReview.Service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mongodb.MongoException;
+import com.shivangjaswal.RestaurantReview.Utils.StaleResponses;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Keeps read endpoints answering while MongoDB is slow or down. A read that has to go to the database runs
+ * on a bounded pool under a deadline; a timeout, a database error or a full pool answers with the last
+ * value that read returned, as long as that is no older than the staleness limit, and the request is
+ * marked stale (see StaleResponses). Without such a value it fails with RejectedExecutionException, which
+ * the controllers turn into 503. A read that missed its deadline keeps running and refreshes the last
+ * known value when it completes.
+ *
+ * Consecutive timeouts and database errors open a circuit breaker: for a cool-down nothing is sent to the
+ * database, then a single trial read decides whether it closes again. Errors that aren't the database's
+ * (not found, bad cursor) pass straight through. Identical concurrent reads share one attempt through the
+ * RequestCoalescer.
+ */
+@Component
+@Slf4j
+public class ResilientReads {
+
+    private enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final RequestCoalescer requestCoalescer;
+    private final MeterRegistry meterRegistry;
+    private final long deadlineMs;
+    private final int failureThreshold;
+    private final long openMs;
+
+    private final ThreadPoolExecutor pool;
+    private final Cache<Key, Object> lastGood;
+
+    private volatile State state = State.CLOSED;
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final AtomicLong openedAt = new AtomicLong();
+
+    public ResilientReads(RequestCoalescer requestCoalescer,
+                          MeterRegistry meterRegistry,
+                          @Value("${app.reads.deadline-ms:1500}") long deadlineMs,
+                          @Value("${app.reads.max-concurrent:64}") int maxConcurrent,
+                          @Value("${app.reads.max-stale-ms:900000}") long maxStaleMs,
+                          @Value("${app.reads.stale-entries:10000}") long staleEntries,
+                          @Value("${app.reads.breaker.failure-threshold:5}") int failureThreshold,
+                          @Value("${app.reads.breaker.open-ms:5000}") long openMs) {
+        this.requestCoalescer = requestCoalescer;
+        this.meterRegistry = meterRegistry;
+        this.deadlineMs = deadlineMs;
+        this.failureThreshold = failureThreshold;
+        this.openMs = openMs;
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.pool = new ThreadPoolExecutor(maxConcurrent, maxConcurrent, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(maxConcurrent * 4), runnable -> {
+                    Thread thread = new Thread(runnable, "db-read-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.pool.allowCoreThreadTimeOut(true);
+        this.lastGood = Caffeine.newBuilder()
+                .maximumSize(staleEntries)
+                .expireAfterWrite(Duration.ofMillis(maxStaleMs))
+                .build();
+
+        meterRegistry.gauge("reads.resilience.breaker.state", this, reads -> reads.state.ordinal());
+        meterRegistry.gauge("reads.resilience.pool.active", pool, ThreadPoolExecutor::getActiveCount);
+    }
+
+    // args identify the read within the operation, as for RequestCoalescer
+    @SuppressWarnings("unchecked")
+    public <T> T read(String operation, Supplier<T> query, Object... args) {
+        Key key = new Key(operation, Arrays.asList(args));
+        Outcome outcome = requestCoalescer.coalesce(operation, () -> attempt(key, query), args);
+        if (outcome.stale()) {
+            StaleResponses.mark();
+        }
+        return (T) outcome.value();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        pool.shutdownNow();
+    }
+
+    private Outcome attempt(Key key, Supplier<?> query) {
+        boolean trial = false;
+        if (state != State.CLOSED) {
+            trial = claimTrial();
+            if (!trial) {
+                return fallback(key, "breaker_open", null);
+            }
+        }
+
+        CompletableFuture<Object> result = new CompletableFuture<>();
+        Future<?> task;
+        try {
+            task = pool.submit(() -> {
+                try {
+                    result.complete(query.get());
+                } catch (Throwable e) {
+                    result.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Overloaded rather than broken: no breaker failure, but a trial that never ran proves nothing
+            if (trial) {
+                reopen();
+            }
+            return fallback(key, "pool_full", null);
+        }
+        if (trial) {
+            state = State.HALF_OPEN;
+        }
+        // Finishing after the deadline still refreshes the last known value
+        result.thenAccept(value -> lastGood.put(key, value));
+
+        try {
+            Object value = result.get(deadlineMs, TimeUnit.MILLISECONDS);
+            onSuccess();
+            return new Outcome(value, false);
+        } catch (TimeoutException e) {
+            onFailure();
+            return fallback(key, "timeout", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof DataAccessException || cause instanceof MongoException) {
+                onFailure();
+                return fallback(key, "database_error", cause);
+            }
+            // The database answered; what it said is the caller's to handle
+            onSuccess();
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            task.cancel(true);
+            if (trial) {
+                reopen();
+            }
+            throw new RejectedExecutionException("Interrupted while reading", e);
+        }
+    }
+
+    private Outcome fallback(Key key, String reason, Throwable cause) {
+        Object value = lastGood.getIfPresent(key);
+        if (value != null) {
+            meterRegistry.counter("reads.resilience.stale", "operation", key.operation(), "reason", reason).increment();
+            return new Outcome(value, true);
+        }
+        meterRegistry.counter("reads.resilience.unavailable", "operation", key.operation(), "reason", reason).increment();
+        throw new RejectedExecutionException("Database unavailable (" + reason + ")", cause);
+    }
+
+    // Once the cool-down is over, exactly one caller gets to try. The breaker only turns half-open when the
+    // trial is actually running; a trial that couldn't run hands the breaker back to a fresh cool-down.
+    private boolean claimTrial() {
+        long opened = openedAt.get();
+        return state == State.OPEN && System.currentTimeMillis() - opened >= openMs
+                && openedAt.compareAndSet(opened, Long.MAX_VALUE);
+    }
+
+    private void reopen() {
+        openedAt.set(System.currentTimeMillis());
+        state = State.OPEN;
+    }
+
+    private void onSuccess() {
+        consecutiveFailures.set(0);
+        if (state != State.CLOSED) {
+            state = State.CLOSED;
+            log.info("Database reads recovered, circuit breaker closed");
+        }
+    }
+
+    private void onFailure() {
+        if (state == State.HALF_OPEN || consecutiveFailures.incrementAndGet() >= failureThreshold) {
+            if (state != State.OPEN) {
+                log.warn("Database reads failing, circuit breaker open for {} ms", openMs);
+            }
+            reopen();
+        }
+    }
+
+    private record Key(String operation, List<Object> args) {
+    }
+
+    // What one attempt produced, shared with everyone who joined it
+    private record Outcome(Object value, boolean stale) {
+    }
+}
@@ -0,0 +1,135 @@
+package com.shivangjaswal.RestaurantReview.Service;
+
+import com.shivangjaswal.RestaurantReview.Dto.FacetsDTO;
+import com.shivangjaswal.RestaurantReview.Entity.RestaurantSummary;
+import com.shivangjaswal.RestaurantReview.Respository.RestaurantRepository;
+import com.shivangjaswal.RestaurantReview.Search.FacetField;
+import com.shivangjaswal.RestaurantReview.Search.FacetIndex;
+import com.shivangjaswal.RestaurantReview.Search.FuzzyIndex;
+import com.shivangjaswal.RestaurantReview.Search.SearchHit;
+import com.shivangjaswal.RestaurantReview.Search.Suggestion;
+import com.shivangjaswal.RestaurantReview.Search.SuggestionIndex;
+import com.shivangjaswal.RestaurantReview.Search.TrigramIndex;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RestaurantSearchService {
+
+    private final RestaurantRepository restaurantRepository;
+
+    private final TrigramIndex trigramIndex = new TrigramIndex();
+    private final SuggestionIndex suggestionIndex = new SuggestionIndex();
+    private final FuzzyIndex fuzzyIndex = new FuzzyIndex();
+    private final FacetIndex facetIndex = new FacetIndex();
+
+    // Ids written while the startup build is running, the build must not overwrite them with older data
+    private final Set<String> writtenDuringBuild = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean building;
+    private volatile boolean ready;
+
+    // Build the in-memory indexes from the restaurants collection once the app is up
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildIndexes() {
+        log.info("Building restaurant search index");
+        building = true;
+        long start = System.currentTimeMillis();
+
+        try (Stream<RestaurantSummary> restaurants = restaurantRepository.streamAllSummaries()) {
+            restaurants.filter(restaurant -> !writtenDuringBuild.contains(restaurant.getId()))
+                    .forEach(this::addToIndexes);
+            ready = true;
+            log.info("Restaurant search index built with {} restaurants in {} ms",
+                    trigramIndex.size(), System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.error("Failed to build restaurant search index, search will use the database: {}", e.getMessage());
+        } finally {
+            building = false;
+            writtenDuringBuild.clear();
+        }
+    }
+
+    // Until the index is built, searches fall back to the database query
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void index(RestaurantSummary restaurant) {
+        if (building) {
+            writtenDuringBuild.add(restaurant.getId());
+        }
+        addToIndexes(restaurant);
+    }
+
+    public void remove(String id) {
+        if (building) {
+            writtenDuringBuild.add(id);
+        }
+        trigramIndex.remove(id);
+        suggestionIndex.remove(id);
+        fuzzyIndex.remove(id);
+        facetIndex.remove(id);
+    }
+
+    // Every restaurant whose name, cuisine type or description contains the term, best match first
+    public List<SearchHit> search(String searchTerm) {
+        return trigramIndex.search(searchTerm);
+    }
+
+    // Typo-tolerant search over the words of names and cuisine types, closest match first
+    public List<SearchHit> fuzzySearch(String searchTerm) {
+        return fuzzyIndex.search(searchTerm);
+    }
+
+    // Cuisine and city counts for a search and/or filter result, computed from bitmaps.
+    // Each facet's counts ignore its own filter so the other values stay selectable.
+    public FacetsDTO facets(String searchTerm, boolean fuzzy, String cuisineType, String city) {
+        RoaringBitmap base;
+        if (searchTerm == null || searchTerm.trim().isEmpty()) {
+            base = facetIndex.all();
+        } else {
+            List<SearchHit> hits = fuzzy ? fuzzySearch(searchTerm) : search(searchTerm);
+            base = facetIndex.of(hits.stream().map(SearchHit::getId).collect(Collectors.toList()));
+        }
+
+        RoaringBitmap withCuisine = base;
+        if (cuisineType != null && !cuisineType.trim().isEmpty()) {
+            withCuisine = RoaringBitmap.and(base, facetIndex.withValue(FacetField.CUISINE, cuisineType));
+        }
+        RoaringBitmap withCity = base;
+        if (city != null && !city.trim().isEmpty()) {
+            withCity = RoaringBitmap.and(base, facetIndex.withValue(FacetField.CITY, city));
+        }
+
+        return FacetsDTO.builder()
+                .total(RoaringBitmap.andCardinality(withCuisine, withCity))
+                .cuisines(facetIndex.counts(FacetField.CUISINE, withCity))
+                .cities(facetIndex.counts(FacetField.CITY, withCuisine))
+                .build();
+    }
+
+    // Top names, cuisines and cities starting with the prefix, served from memory
+    public List<Suggestion> suggest(String prefix, int limit) {
+        return suggestionIndex.suggest(prefix, limit);
+    }
+
+    private void addToIndexes(RestaurantSummary restaurant) {
+        trigramIndex.put(restaurant.getId(), restaurant.getName(), restaurant.getCuisineType(), restaurant.getDescription());
+        suggestionIndex.put(restaurant.getId(), restaurant.getName(), restaurant.getCuisineType(), restaurant.getCity());
+        fuzzyIndex.put(restaurant.getId(), restaurant.getName(), restaurant.getCuisineType());
+        facetIndex.put(restaurant.getId(), restaurant.getCuisineType(), restaurant.getCity());
+    }
+}
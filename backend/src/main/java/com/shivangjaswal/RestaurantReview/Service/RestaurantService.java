@@ -1,17 +1,36 @@
 package com.shivangjaswal.RestaurantReview.Service;
 
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.shivangjaswal.RestaurantReview.Dto.CreateRestaurantDTO;
+import com.shivangjaswal.RestaurantReview.Dto.FacetsDTO;
+import com.shivangjaswal.RestaurantReview.Dto.NearbyRestaurantDTO;
+import com.shivangjaswal.RestaurantReview.Dto.PageResponseDTO;
 import com.shivangjaswal.RestaurantReview.Dto.RestaurantDTO;
+import com.shivangjaswal.RestaurantReview.Dto.SuggestionDTO;
 import com.shivangjaswal.RestaurantReview.Dto.UpdateRestaurantDTO;
 import com.shivangjaswal.RestaurantReview.Entity.Restaurant;
+import com.shivangjaswal.RestaurantReview.Entity.RestaurantSummary;
+import com.shivangjaswal.RestaurantReview.Respository.LocalWrites;
 import com.shivangjaswal.RestaurantReview.Respository.RestaurantRepository;
+import com.shivangjaswal.RestaurantReview.Respository.ReviewRepository;
+import com.shivangjaswal.RestaurantReview.Search.SearchHit;
+import com.shivangjaswal.RestaurantReview.Utils.RestaurantCursor;
+import com.shivangjaswal.RestaurantReview.Utils.SearchCursor;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -19,6 +38,26 @@ import java.util.stream.Collectors;
 public class RestaurantService {
 
     private final RestaurantRepository restaurantRepository;
+    private final ReviewRepository reviewRepository;
+    private final RestaurantSearchService restaurantSearchService;
+    private final NearbySearchCache nearbySearchCache;
+    private final LeaderboardService leaderboardService;
+    private final ViewCache viewCache;
+    private final ObjectMapper objectMapper;
+    private final ResilientReads resilientReads;
+    private final LocalWrites localWrites;
+
+    @Value("${app.pagination.default-size:20}")
+    private int defaultPageSize;
+
+    @Value("${app.pagination.max-size:100}")
+    private int maxPageSize;
+
+    @Value("${app.search.max-suggestions:20}")
+    private int maxSuggestions;
+
+    @Value("${app.geo.default-radius-km:5}")
+    private double defaultRadiusKm;
 
     // CREATE
     public RestaurantDTO createRestaurant(CreateRestaurantDTO createDTO) {
@@ -29,22 +68,23 @@ public class RestaurantService {
                 .address(createDTO.getAddress())
                 .city(createDTO.getCity())
                 .phoneNumber(createDTO.getPhoneNumber())
+                .location(toLocation(createDTO.getLatitude(), createDTO.getLongitude()))
                 .averageRating(0.0)
                 .totalReviews(0)
+                .version(0L)
                 .createdAt(LocalDateTime.now())
                 .updatedAt(LocalDateTime.now())
                 .build();
 
         Restaurant savedRestaurant = restaurantRepository.save(restaurant);
+        localWrites.record(savedRestaurant.getId(), savedRestaurant.getVersion());
+        afterWrite(savedRestaurant);
         return convertToDTO(savedRestaurant);
     }
 
-    // READ - Get all restaurants
-    public List<RestaurantDTO> getAllRestaurants() {
-        List<Restaurant> restaurants = restaurantRepository.findAll();
-        return restaurants.stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+    // READ - Get all restaurants, one page at a time
+    public PageResponseDTO<RestaurantDTO> getAllRestaurants(String cursor, Integer size) {
+        return resilientReads.read("restaurants.all", () -> findPage(null, null, cursor, size), cursor, size);
     }
 
     // READ - Get restaurant by ID
@@ -57,65 +97,155 @@ public class RestaurantService {
         }
     }
 
+    // READ - Restaurant by ID as ready-to-send JSON, through the view cache
+    // Only a miss goes to the database, under a deadline; a stale fallback never enters the view cache
+    public SerializedView getRestaurantView(String id) {
+        SerializedView cached = viewCache.cachedRestaurant(id);
+        if (cached != null) {
+            return cached;
+        }
+        return resilientReads.read("restaurants.view", () -> viewCache.restaurant(id, () -> {
+            RestaurantDTO restaurant = getRestaurantById(id);
+            return SerializedView.of(objectMapper, restaurant, restaurant.getVersion());
+        }), id);
+    }
+
+    // READ - Current version of a restaurant for conditional GETs, without loading the document
+    public long getRestaurantVersion(String id) {
+        Long cached = viewCache.cachedVersion(id);
+        if (cached != null) {
+            return cached;
+        }
+        return resilientReads.read("restaurants.version", () -> viewCache.version(id, () -> restaurantRepository.findVersion(id)
+                .orElseThrow(() -> new RuntimeException("Restaurant not found with id: " + id))), id);
+    }
+
+    // READ - Version of the restaurant collection as a whole, changes with any restaurant or rating write
+    public long getCollectionVersion() {
+        return viewCache.collectionVersion();
+    }
+
     // READ - Search restaurants
-    public List<RestaurantDTO> searchRestaurants(String searchTerm) {
-        List<Restaurant> restaurants;
-        if (searchTerm == null || searchTerm.trim().isEmpty()) {
-            restaurants = restaurantRepository.findAll();
-        } else {
-            restaurants = restaurantRepository.searchRestaurants(searchTerm);
+    // fuzzy tolerates typos ("piza", "shushi") by matching whole words within a small edit distance
+    // A search keeps the cursor format it started with: one begun on the database before the index was ready
+    // finishes there, and an index cursor sent to a node whose index isn't ready yet is refused
+    public PageResponseDTO<RestaurantDTO> searchRestaurants(String searchTerm, boolean fuzzy, String cursor, Integer size) {
+        return resilientReads.read("restaurants.search", () -> {
+            if (searchTerm == null || searchTerm.trim().isEmpty()) {
+                return findPage(null, null, cursor, size);
+            }
+            boolean paging = cursor != null && !cursor.isEmpty();
+            if (!restaurantSearchService.isReady()) {
+                if (paging && SearchCursor.isSearchCursor(cursor)) {
+                    throw new IllegalArgumentException("Search cursor from another server, start the search again");
+                }
+                return findPage(null, searchTerm.trim(), cursor, size);
+            }
+            if (paging && !SearchCursor.isSearchCursor(cursor)) {
+                return findPage(null, searchTerm.trim(), cursor, size);
+            }
+            List<SearchHit> hits = fuzzy
+                    ? restaurantSearchService.fuzzySearch(searchTerm)
+                    : restaurantSearchService.search(searchTerm);
+            return searchPage(hits, cursor, size);
+        }, searchTerm, fuzzy, cursor, size);
+    }
+
+    // READ - Nearby restaurants: everything within radiusKm, or the k nearest when k is given
+    public List<NearbyRestaurantDTO> findNearby(double latitude, double longitude, Double radiusKm, Integer k) {
+        checkCoordinates(latitude, longitude);
+        // Written so NaN fails too
+        if (radiusKm != null && !(radiusKm > 0 && radiusKm < Double.POSITIVE_INFINITY) || k != null && k <= 0) {
+            throw new IllegalArgumentException("radiusKm and k must be positive");
+        }
+        Double radius = radiusKm == null && k == null ? Double.valueOf(defaultRadiusKm) : radiusKm;
+
+        return resilientReads.read("restaurants.nearby",
+                () -> nearbySearchCache.nearby(latitude, longitude, radius, k, maxPageSize).stream()
+                        .map(result -> NearbyRestaurantDTO.builder()
+                                .restaurant(convertToDTO(result.getContent()))
+                                .distanceKm(Math.round(result.getDistance().getValue() * 1000.0) / 1000.0)
+                                .build())
+                        .collect(Collectors.toList()),
+                latitude, longitude, radius, k);
+    }
+
+    // READ - Top rated restaurants overall, for one cuisine or for one city, served from memory
+    public List<RestaurantDTO> getTopRated(String cuisineType, String city, Integer limit) {
+        if (cuisineType != null && city != null) {
+            throw new IllegalArgumentException("Choose either a cuisine or a city");
         }
-        return restaurants.stream()
+        return leaderboardService.top(cuisineType, city, resolvePageSize(limit)).stream()
                 .map(this::convertToDTO)
                 .collect(Collectors.toList());
     }
 
-    // READ - Filter by cuisine
-    public List<RestaurantDTO> getRestaurantsByCuisine(String cuisineType) {
-        List<Restaurant> restaurants = restaurantRepository.findByCuisineTypeIgnoreCase(cuisineType);
-        return restaurants.stream()
-                .map(this::convertToDTO)
+    // READ - Cuisine and city counts for a search and/or filter
+    public FacetsDTO getFacets(String searchTerm, boolean fuzzy, String cuisineType, String city) {
+        checkSearchReady();
+        return restaurantSearchService.facets(searchTerm, fuzzy, cuisineType, city);
+    }
+
+    // READ - Typeahead suggestions for the search box
+    public List<SuggestionDTO> suggest(String prefix, Integer limit) {
+        checkSearchReady();
+        int max = limit == null || limit <= 0 ? 10 : Math.min(limit, maxSuggestions);
+        return restaurantSearchService.suggest(prefix, max).stream()
+                .map(suggestion -> SuggestionDTO.builder()
+                        .text(suggestion.getText())
+                        .type(suggestion.getType().name())
+                        .count(suggestion.getCount())
+                        .build())
                 .collect(Collectors.toList());
     }
 
+    // READ - Filter by cuisine
+    public PageResponseDTO<RestaurantDTO> getRestaurantsByCuisine(String cuisineType, String cursor, Integer size) {
+        return resilientReads.read("restaurants.cuisine",
+                () -> findPage(cuisineType, null, cursor, size), cuisineType, cursor, size);
+    }
+
     // UPDATE
+    // Only the edited fields are written, so a concurrent review can't lose its rating change to this save
     public RestaurantDTO updateRestaurant(String id, UpdateRestaurantDTO updateDTO) {
-        Optional<Restaurant> optionalRestaurant = restaurantRepository.findById(id);
-        if (optionalRestaurant.isPresent()) {
-            Restaurant restaurant = optionalRestaurant.get();
-
-            // Update fields only if they are provided
-            if (updateDTO.getName() != null) {
-                restaurant.setName(updateDTO.getName());
-            }
-            if (updateDTO.getDescription() != null) {
-                restaurant.setDescription(updateDTO.getDescription());
-            }
-            if (updateDTO.getCuisineType() != null) {
-                restaurant.setCuisineType(updateDTO.getCuisineType());
-            }
-            if (updateDTO.getAddress() != null) {
-                restaurant.setAddress(updateDTO.getAddress());
-            }
-            if (updateDTO.getCity() != null) {
-                restaurant.setCity(updateDTO.getCity());
-            }
-            if (updateDTO.getPhoneNumber() != null) {
-                restaurant.setPhoneNumber(updateDTO.getPhoneNumber());
-            }
+        Map<String, Object> fields = new LinkedHashMap<>();
 
-            restaurant.setUpdatedAt(LocalDateTime.now());
-            Restaurant updatedRestaurant = restaurantRepository.save(restaurant);
-            return convertToDTO(updatedRestaurant);
-        } else {
-            throw new RuntimeException("Restaurant not found with id: " + id);
+        // Update fields only if they are provided
+        if (updateDTO.getName() != null) {
+            fields.put("name", updateDTO.getName());
+        }
+        if (updateDTO.getDescription() != null) {
+            fields.put("description", updateDTO.getDescription());
+        }
+        if (updateDTO.getCuisineType() != null) {
+            fields.put("cuisineType", updateDTO.getCuisineType());
+        }
+        if (updateDTO.getAddress() != null) {
+            fields.put("address", updateDTO.getAddress());
+        }
+        if (updateDTO.getCity() != null) {
+            fields.put("city", updateDTO.getCity());
         }
+        if (updateDTO.getPhoneNumber() != null) {
+            fields.put("phoneNumber", updateDTO.getPhoneNumber());
+        }
+        if (updateDTO.getLatitude() != null || updateDTO.getLongitude() != null) {
+            fields.put("location", toLocation(updateDTO.getLatitude(), updateDTO.getLongitude()));
+        }
+        fields.put("updatedAt", LocalDateTime.now());
+
+        Restaurant updatedRestaurant = restaurantRepository.updateFields(id, fields)
+                .orElseThrow(() -> new RuntimeException("Restaurant not found with id: " + id));
+        afterWrite(updatedRestaurant);
+        return convertToDTO(updatedRestaurant);
     }
 
     // DELETE
     public void deleteRestaurant(String id) {
         if (restaurantRepository.existsById(id)) {
             restaurantRepository.deleteById(id);
+            reviewRepository.deleteByRestaurantId(id);
+            afterDelete(id);
         } else {
             throw new RuntimeException("Restaurant not found with id: " + id);
         }
@@ -124,28 +254,129 @@ public class RestaurantService {
     // Add these methods to your RestaurantService.java
 
     public RestaurantDTO updateRestaurantPhotos(String id, List<String> photoUrls) {
-        Restaurant restaurant = restaurantRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Restaurant not found with id: " + id));
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("photoUrls", photoUrls);
+        fields.put("updatedAt", LocalDateTime.now());
 
-        restaurant.setPhotoUrls(photoUrls);
-        Restaurant savedRestaurant = restaurantRepository.save(restaurant);
+        Restaurant savedRestaurant = restaurantRepository.updateFields(id, fields)
+                .orElseThrow(() -> new RuntimeException("Restaurant not found with id: " + id));
+        afterWrite(savedRestaurant);
 
         return convertToDTO(savedRestaurant);
     }
 
     public RestaurantDTO removeRestaurantPhoto(String id, String photoUrl) {
-        Restaurant restaurant = restaurantRepository.findById(id)
+        Restaurant savedRestaurant = restaurantRepository.pullPhoto(id, photoUrl)
                 .orElseThrow(() -> new RuntimeException("Restaurant not found with id: " + id));
+        afterWrite(savedRestaurant);
+
+        return convertToDTO(savedRestaurant);
+    }
 
-        if (restaurant.getPhotoUrls() != null) {
-            restaurant.getPhotoUrls().remove(photoUrl);
-            Restaurant savedRestaurant = restaurantRepository.save(restaurant);
-            return convertToDTO(savedRestaurant);
+
+    // Helper method to turn away reads only the in-memory indexes can answer while they are still being built,
+    // rather than serve counts and suggestions from part of the restaurants
+    private void checkSearchReady() {
+        if (!restaurantSearchService.isReady()) {
+            throw new RejectedExecutionException("Search index is still being built, try again shortly");
         }
+    }
+
+    // Helper method to fetch one keyset page; reads one extra row to know whether another page exists
+    private PageResponseDTO<RestaurantDTO> findPage(String cuisineType, String searchTerm, String cursor, Integer size) {
+        int pageSize = resolvePageSize(size);
+        RestaurantCursor after = cursor == null || cursor.isEmpty() ? null : RestaurantCursor.decode(cursor);
 
-        throw new RuntimeException("No photos found for restaurant");
+        List<RestaurantSummary> restaurants = restaurantRepository.findPage(cuisineType, searchTerm, after, pageSize + 1);
+        boolean hasNext = restaurants.size() > pageSize;
+        if (hasNext) {
+            restaurants = restaurants.subList(0, pageSize);
+        }
+
+        return PageResponseDTO.<RestaurantDTO>builder()
+                .content(restaurants.stream()
+                        .map(this::convertToDTO)
+                        .collect(Collectors.toList()))
+                .size(restaurants.size())
+                .hasNext(hasNext)
+                .nextCursor(hasNext ? RestaurantCursor.of(restaurants.get(restaurants.size() - 1)).encode() : null)
+                .build();
     }
 
+    // Helper method to page through the in-memory search ranking, then load just that page's summaries
+    private PageResponseDTO<RestaurantDTO> searchPage(List<SearchHit> hits, String cursor, Integer size) {
+        int pageSize = resolvePageSize(size);
+
+        int start = 0;
+        if (cursor != null && !cursor.isEmpty()) {
+            int position = Collections.binarySearch(hits, SearchCursor.decode(cursor), SearchHit.ORDER);
+            start = position >= 0 ? position + 1 : -position - 1;
+        }
+        int end = Math.min(start + pageSize, hits.size());
+        List<SearchHit> pageHits = hits.subList(start, end);
+        boolean hasNext = end < hits.size();
+
+        Map<String, RestaurantSummary> summaries = restaurantRepository.findSummariesByIds(
+                        pageHits.stream().map(SearchHit::getId).collect(Collectors.toList()))
+                .stream()
+                .collect(Collectors.toMap(RestaurantSummary::getId, Function.identity()));
+
+        List<RestaurantDTO> content = pageHits.stream()
+                .map(hit -> summaries.get(hit.getId()))
+                .filter(Objects::nonNull)
+                .map(this::convertToDTO)
+                .collect(Collectors.toList());
+
+        return PageResponseDTO.<RestaurantDTO>builder()
+                .content(content)
+                .size(content.size())
+                .hasNext(hasNext)
+                .nextCursor(hasNext ? SearchCursor.encode(pageHits.get(pageHits.size() - 1)) : null)
+                .build();
+    }
+
+    // Helper methods to keep the in-memory read models in step with the collection
+    private void afterWrite(Restaurant restaurant) {
+        RestaurantSummary summary = RestaurantSummary.from(restaurant);
+        restaurantSearchService.index(summary);
+        leaderboardService.update(summary);
+        nearbySearchCache.invalidateAll();
+        viewCache.invalidateRestaurant(restaurant.getId());
+    }
+
+    private void afterDelete(String id) {
+        restaurantSearchService.remove(id);
+        leaderboardService.remove(id);
+        nearbySearchCache.invalidateAll();
+        viewCache.invalidateRestaurant(id);
+        viewCache.invalidateAllReviews(id);
+    }
+
+    // Helper method to build a GeoJSON point (x = longitude, y = latitude) from optional coordinates
+    private GeoJsonPoint toLocation(Double latitude, Double longitude) {
+        if (latitude == null && longitude == null) {
+            return null;
+        }
+        if (latitude == null || longitude == null) {
+            throw new IllegalArgumentException("Latitude and longitude must be provided together");
+        }
+        checkCoordinates(latitude, longitude);
+        return new GeoJsonPoint(longitude, latitude);
+    }
+
+    // Written so NaN fails too
+    private static void checkCoordinates(double latitude, double longitude) {
+        if (!(latitude >= -90 && latitude <= 90 && longitude >= -180 && longitude <= 180)) {
+            throw new IllegalArgumentException("Coordinates out of range");
+        }
+    }
+
+    private int resolvePageSize(Integer size) {
+        if (size == null || size <= 0) {
+            return defaultPageSize;
+        }
+        return Math.min(size, maxPageSize);
+    }
 
     // Helper method to convert entity to DTO
     private RestaurantDTO convertToDTO(Restaurant restaurant) {
@@ -157,8 +388,33 @@ public class RestaurantService {
                 .address(restaurant.getAddress())
                 .city(restaurant.getCity())
                 .phoneNumber(restaurant.getPhoneNumber())
+                .latitude(restaurant.getLocation() != null ? restaurant.getLocation().getY() : null)
+                .longitude(restaurant.getLocation() != null ? restaurant.getLocation().getX() : null)
+                .averageRating(restaurant.getAverageRating())
+                .totalReviews(restaurant.getTotalReviews())
+                .ratingHistogram(RestaurantDTO.histogramOf(restaurant.getRatingHistogram()))
+                .version(restaurant.getVersion() != null ? restaurant.getVersion() : 0L)
+                .photoUrls(restaurant.getPhotoUrls())
+                .createdAt(restaurant.getCreatedAt())
+                .updatedAt(restaurant.getUpdatedAt())
+                .build();
+    }
+
+    private RestaurantDTO convertToDTO(RestaurantSummary restaurant) {
+        return RestaurantDTO.builder()
+                .id(restaurant.getId())
+                .name(restaurant.getName())
+                .description(restaurant.getDescription())
+                .cuisineType(restaurant.getCuisineType())
+                .address(restaurant.getAddress())
+                .city(restaurant.getCity())
+                .phoneNumber(restaurant.getPhoneNumber())
+                .latitude(restaurant.getLocation() != null ? restaurant.getLocation().getY() : null)
+                .longitude(restaurant.getLocation() != null ? restaurant.getLocation().getX() : null)
                 .averageRating(restaurant.getAverageRating())
                 .totalReviews(restaurant.getTotalReviews())
+                .ratingHistogram(RestaurantDTO.histogramOf(restaurant.getRatingHistogram()))
+                .version(restaurant.getVersion() != null ? restaurant.getVersion() : 0L)
                 .photoUrls(restaurant.getPhotoUrls())
                 .createdAt(restaurant.getCreatedAt())
                 .updatedAt(restaurant.getUpdatedAt())
@@ -0,0 +1,263 @@
+package com.shivangjaswal.RestaurantReview.Service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shivangjaswal.RestaurantReview.Dto.RestaurantDTO;
+import com.shivangjaswal.RestaurantReview.Dto.ReviewDTO;
+import com.shivangjaswal.RestaurantReview.Dto.ReviewEventDTO;
+import com.shivangjaswal.RestaurantReview.Entity.RestaurantSummary;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-process fan-out of review and rating events to Server-Sent Events subscribers, per restaurant and
+ * global. A subscriber is just an SseEmitter parked on an async request, so idle connections hold no
+ * thread. Events are serialized once and queued to every subscriber; a small sender pool writes each
+ * subscriber's queue in order, off the request that caused them. A send to a connection that stopped
+ * reading blocks its sender thread until the container's write timeout (server.tomcat.connection-timeout)
+ * fails it; while fewer connections than app.events.sender-threads are stuck like that the others' events
+ * keep flowing, past that every subscriber waits up to one write timeout, which is what the pool size and
+ * the timeout are set against. A subscriber whose queue fills up (app.events.subscriber-queue) has
+ * stopped reading and is dropped. A periodic heartbeat comment keeps proxies from closing idle streams
+ * and flushes out subscribers whose connection is gone.
+ */
+@Component
+@Slf4j
+public class ReviewEventHub {
+
+    private final ObjectMapper objectMapper;
+    private final long emitterTimeoutMs;
+    private final int maxSubscribers;
+    private final int subscriberQueue;
+
+    private final Map<String, Set<Subscriber>> byRestaurant = new ConcurrentHashMap<>();
+    private final Set<Subscriber> global = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger subscribers = new AtomicInteger();
+    private final Counter dropped;
+
+    private final ExecutorService sender;
+    private final ScheduledExecutorService heartbeat;
+
+    public ReviewEventHub(ObjectMapper objectMapper,
+                          MeterRegistry meterRegistry,
+                          @Value("${app.events.emitter-timeout-ms:1800000}") long emitterTimeoutMs,
+                          @Value("${app.events.max-subscribers:10000}") int maxSubscribers,
+                          @Value("${app.events.heartbeat-ms:25000}") long heartbeatMs,
+                          @Value("${app.events.sender-threads:16}") int senderThreads,
+                          @Value("${app.events.subscriber-queue:64}") int subscriberQueue) {
+        this.objectMapper = objectMapper;
+        this.emitterTimeoutMs = emitterTimeoutMs;
+        this.maxSubscribers = maxSubscribers;
+        this.subscriberQueue = subscriberQueue;
+
+        // At most one drain task per subscriber is queued or running, which keeps its events in order
+        this.sender = Executors.newFixedThreadPool(senderThreads, daemon("review-events"));
+        this.heartbeat = Executors.newSingleThreadScheduledExecutor(daemon("review-events-heartbeat"));
+        this.heartbeat.scheduleWithFixedDelay(this::sendHeartbeat, heartbeatMs, heartbeatMs, TimeUnit.MILLISECONDS);
+
+        meterRegistry.gauge("reviews.events.subscribers", subscribers);
+        this.dropped = meterRegistry.counter("reviews.events.dropped");
+    }
+
+    // restaurantId null subscribes to every restaurant
+    public SseEmitter subscribe(String restaurantId) {
+        if (subscribers.incrementAndGet() > maxSubscribers) {
+            subscribers.decrementAndGet();
+            throw new RejectedExecutionException("Too many event subscribers");
+        }
+
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMs);
+        Subscriber subscriber = new Subscriber(emitter, subscriberQueue);
+        if (restaurantId == null) {
+            subscriber.unsubscribe = () -> {
+                if (global.remove(subscriber)) {
+                    subscribers.decrementAndGet();
+                }
+            };
+            global.add(subscriber);
+        } else {
+            subscriber.unsubscribe = () -> byRestaurant.computeIfPresent(restaurantId, (id, group) -> {
+                if (group.remove(subscriber)) {
+                    subscribers.decrementAndGet();
+                }
+                return group.isEmpty() ? null : group;
+            });
+            // Add and remove inside compute so an emptied set is never dropped while someone joins it
+            byRestaurant.compute(restaurantId, (id, group) -> {
+                Set<Subscriber> joined = group != null ? group : ConcurrentHashMap.newKeySet();
+                joined.add(subscriber);
+                return joined;
+            });
+        }
+        emitter.onCompletion(subscriber.unsubscribe);
+        emitter.onTimeout(subscriber.unsubscribe);
+        emitter.onError(error -> subscriber.unsubscribe.run());
+        return emitter;
+    }
+
+    public void reviewCreated(ReviewDTO review) {
+        publish(reviewEvent(ReviewEventDTO.Type.REVIEW_CREATED, review.getRestaurantId(), review.getId(), review));
+    }
+
+    public void reviewUpdated(ReviewDTO review) {
+        publish(reviewEvent(ReviewEventDTO.Type.REVIEW_UPDATED, review.getRestaurantId(), review.getId(), review));
+    }
+
+    public void reviewDeleted(String restaurantId, String reviewId) {
+        publish(reviewEvent(ReviewEventDTO.Type.REVIEW_DELETED, restaurantId, reviewId, null));
+    }
+
+    public void ratingChanged(RestaurantSummary restaurant) {
+        publish(ReviewEventDTO.builder()
+                .type(ReviewEventDTO.Type.RATING_CHANGED)
+                .restaurantId(restaurant.getId())
+                .occurredAt(LocalDateTime.now())
+                .averageRating(restaurant.getAverageRating())
+                .totalReviews(restaurant.getTotalReviews())
+                .ratingHistogram(RestaurantDTO.histogramOf(restaurant.getRatingHistogram()))
+                .build());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        heartbeat.shutdownNow();
+        sender.shutdown();
+        byRestaurant.values().forEach(group -> group.forEach(subscriber -> subscriber.emitter.complete()));
+        global.forEach(subscriber -> subscriber.emitter.complete());
+    }
+
+    private ReviewEventDTO reviewEvent(ReviewEventDTO.Type type, String restaurantId, String reviewId, ReviewDTO review) {
+        return ReviewEventDTO.builder()
+                .type(type)
+                .restaurantId(restaurantId)
+                .occurredAt(LocalDateTime.now())
+                .reviewId(reviewId)
+                // Anyone may subscribe, so the reviewer's email stays out of the stream
+                .review(review != null ? review.toBuilder().userEmail(null).build() : null)
+                .build();
+    }
+
+    private void publish(ReviewEventDTO event) {
+        Set<Subscriber> restaurantSubscribers = byRestaurant.get(event.getRestaurantId());
+        if ((restaurantSubscribers == null || restaurantSubscribers.isEmpty()) && global.isEmpty()) {
+            return;
+        }
+
+        Frame frame;
+        try {
+            frame = new Frame(event.getType().eventName(), objectMapper.writeValueAsString(event));
+        } catch (JsonProcessingException e) {
+            log.error("Could not serialize {} event", event.getType(), e);
+            return;
+        }
+        if (restaurantSubscribers != null) {
+            restaurantSubscribers.forEach(subscriber -> enqueue(subscriber, frame));
+        }
+        global.forEach(subscriber -> enqueue(subscriber, frame));
+    }
+
+    private void sendHeartbeat() {
+        byRestaurant.values().forEach(group -> group.forEach(subscriber -> enqueue(subscriber, Frame.HEARTBEAT)));
+        global.forEach(subscriber -> enqueue(subscriber, Frame.HEARTBEAT));
+    }
+
+    // Never blocks the publisher: a full queue drops the subscriber, its drain completes the emitter
+    private void enqueue(Subscriber subscriber, Frame frame) {
+        if (!subscriber.pending.offer(frame)) {
+            // Several publishers can find the queue full at once, only one of them drops it
+            if (subscriber.dropped.compareAndSet(false, true)) {
+                subscriber.unsubscribe.run();
+                dropped.increment();
+                log.debug("Dropped an event subscriber that stopped reading");
+            }
+        }
+        if (subscriber.draining.compareAndSet(false, true)) {
+            try {
+                sender.execute(() -> drain(subscriber));
+            } catch (RejectedExecutionException e) {
+                // Shutting down
+            }
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        do {
+            Frame frame;
+            while (!subscriber.dropped.get() && (frame = subscriber.pending.poll()) != null) {
+                if (!send(subscriber.emitter, frame)) {
+                    return;
+                }
+            }
+            if (subscriber.dropped.get()) {
+                subscriber.pending.clear();
+                subscriber.emitter.complete();
+                return;
+            }
+            subscriber.draining.set(false);
+            // Recheck: a frame queued after the last poll but before the flag was cleared found it still set
+        } while (!subscriber.pending.isEmpty() && subscriber.draining.compareAndSet(false, true));
+    }
+
+    private boolean send(SseEmitter emitter, Frame frame) {
+        try {
+            emitter.send(frame == Frame.HEARTBEAT
+                    ? SseEmitter.event().comment("heartbeat")
+                    : SseEmitter.event().name(frame.name()).data(frame.json(), MediaType.APPLICATION_JSON));
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            // Connection gone; completing triggers the unsubscribe callback
+            emitter.completeWithError(e);
+            return false;
+        }
+    }
+
+    private static ThreadFactory daemon(String name) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    // An event as it goes out, serialized once for all subscribers
+    private record Frame(String name, String json) {
+        static final Frame HEARTBEAT = new Frame(null, null);
+    }
+
+    private static final class Subscriber {
+        final SseEmitter emitter;
+        final BlockingQueue<Frame> pending;
+        // Set while a drain task is queued or running
+        final AtomicBoolean draining = new AtomicBoolean();
+        final AtomicBoolean dropped = new AtomicBoolean();
+        Runnable unsubscribe;
+
+        Subscriber(SseEmitter emitter, int queueCapacity) {
+            this.emitter = emitter;
+            this.pending = new ArrayBlockingQueue<>(queueCapacity);
+        }
+    }
+}
@@ -1,17 +1,24 @@
 package com.shivangjaswal.RestaurantReview.Service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.shivangjaswal.RestaurantReview.Dto.CreateReviewDTO;
+import com.shivangjaswal.RestaurantReview.Dto.PageResponseDTO;
 import com.shivangjaswal.RestaurantReview.Dto.ReviewDTO;
 import com.shivangjaswal.RestaurantReview.Dto.UpdateReviewDTO;
-import com.shivangjaswal.RestaurantReview.Entity.Restaurant;
+import com.shivangjaswal.RestaurantReview.Entity.RestaurantSummary;
 import com.shivangjaswal.RestaurantReview.Entity.Review;
 import com.shivangjaswal.RestaurantReview.Respository.RestaurantRepository;
+import com.shivangjaswal.RestaurantReview.Respository.ReviewRepository;
+import com.shivangjaswal.RestaurantReview.Utils.DtoConstraints;
+import com.shivangjaswal.RestaurantReview.Utils.ReviewCursor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -21,93 +28,136 @@ import java.util.stream.Collectors;
 public class ReviewService {
 
     private final RestaurantRepository restaurantRepository;
+    private final ReviewRepository reviewRepository;
+    private final LeaderboardService leaderboardService;
+    private final NearbySearchCache nearbySearchCache;
+    // Present when app.reviews.write-behind.enabled=true
+    private final Optional<ReviewWriteBehindQueue> writeBehindQueue;
+    private final ReviewEventHub reviewEventHub;
+    private final ViewCache viewCache;
+    private final ObjectMapper objectMapper;
+    private final ResilientReads resilientReads;
+
+    @Value("${app.pagination.default-size:20}")
+    private int defaultPageSize;
+
+    @Value("${app.pagination.max-size:100}")
+    private int maxPageSize;
 
     // Create a new review
     public ReviewDTO createReview(String restaurantId, CreateReviewDTO createReviewDTO) {
         log.info("Creating review for restaurant: {} by user: {}", restaurantId, createReviewDTO.getUserEmail());
+        checkConstraints(createReviewDTO);
 
-        // Find restaurant
-        Restaurant restaurant = restaurantRepository.findById(restaurantId)
-                .orElseThrow(() -> new RuntimeException("Restaurant not found with id: " + restaurantId));
-
-        // Check if user already reviewed this restaurant
-        boolean alreadyReviewed = restaurant.getReviews().stream()
-                .anyMatch(review -> review.getUserEmail().equalsIgnoreCase(createReviewDTO.getUserEmail()));
-
-        if (alreadyReviewed) {
-            throw new RuntimeException("User has already reviewed this restaurant");
+        // Check restaurant exists
+        if (!restaurantRepository.existsById(restaurantId)) {
+            throw new RuntimeException("Restaurant not found with id: " + restaurantId);
         }
 
+        // Emails are stored lower-cased
+        String userEmail = createReviewDTO.getUserEmail().toLowerCase();
+
         // Create new review
         Review review = Review.builder()
                 .id(UUID.randomUUID().toString())
+                .restaurantId(restaurantId)
                 .username(createReviewDTO.getUsername())
-                .userEmail(createReviewDTO.getUserEmail().toLowerCase())
+                .userEmail(userEmail)
                 .content(createReviewDTO.getContent())
                 .rating(createReviewDTO.getRating())
                 .createdAt(LocalDateTime.now())
                 .lastEditedAt(LocalDateTime.now())
                 .build();
 
-        // Add review to restaurant
-        restaurant.getReviews().add(review);
-
-        // Update restaurant ratings
-        updateRestaurantRating(restaurant);
-
-        // Save restaurant
-        Restaurant savedRestaurant = restaurantRepository.save(restaurant);
+        if (writeBehindQueue.isPresent()) {
+            // Batched with other submissions: insert and restaurant rating update happen in the next flush
+            writeBehindQueue.get().write(review);
+        } else {
+            // Upsert inserts only if the user has no review here; the unique restaurant_reviewer index settles concurrent posts
+            if (!reviewRepository.insertIfNotReviewed(review)) {
+                throw new IllegalStateException("User has already reviewed this restaurant");
+            }
+            viewCache.invalidateReviews(restaurantId, review.getId());
+
+            // Update restaurant ratings
+            updateRestaurantRating(restaurantId, null, review.getRating());
+        }
 
         log.info("Review created successfully with id: {}", review.getId());
-        return convertToDTO(review);
+        ReviewDTO createdReview = convertToDTO(review);
+        reviewEventHub.reviewCreated(createdReview);
+        return createdReview;
     }
 
-    // Get all reviews for a restaurant
-    public List<ReviewDTO> getReviewsByRestaurant(String restaurantId) {
-        Restaurant restaurant = restaurantRepository.findById(restaurantId)
-                .orElseThrow(() -> new RuntimeException("Restaurant not found with id: " + restaurantId));
+    // Get a page of reviews for a restaurant, newest first
+    public PageResponseDTO<ReviewDTO> getReviewsByRestaurant(String restaurantId, String cursor, Integer size) {
+        int pageSize = resolvePageSize(size);
+        ReviewCursor after = cursor == null || cursor.isEmpty() ? null : ReviewCursor.decode(cursor);
+        return resilientReads.read("reviews.restaurant", () -> {
+            if (!restaurantRepository.existsById(restaurantId)) {
+                throw new RuntimeException("Restaurant not found with id: " + restaurantId);
+            }
+            return toPage(reviewRepository.findPageByRestaurant(restaurantId, after, pageSize + 1), pageSize);
+        }, restaurantId, cursor, pageSize);
+    }
 
-        return restaurant.getReviews().stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+    // The same page as ready-to-send JSON with the version it was read at
+    public SerializedView getReviewsPageView(String restaurantId, String cursor, Integer size) {
+        int pageSize = resolvePageSize(size);
+        ReviewCursor after = cursor == null || cursor.isEmpty() ? null : ReviewCursor.decode(cursor);
+        if (after == null && pageSize == defaultPageSize) {
+            // The first page is what every visitor of the restaurant loads; deleting the restaurant drops it
+            SerializedView cached = viewCache.cachedFirstReviewPage(restaurantId);
+            if (cached != null) {
+                return cached;
+            }
+            return resilientReads.read("reviews.restaurant.first",
+                    () -> viewCache.firstReviewPage(restaurantId, () -> reviewPageView(restaurantId, null, pageSize)),
+                    restaurantId);
+        }
+        return resilientReads.read("reviews.restaurant.view",
+                () -> reviewPageView(restaurantId, after, pageSize), restaurantId, cursor, pageSize);
     }
 
-    // Get a specific review
-    public ReviewDTO getReview(String restaurantId, String reviewId) {
-        Restaurant restaurant = restaurantRepository.findById(restaurantId)
-                .orElseThrow(() -> new RuntimeException("Restaurant not found with id: " + restaurantId));
+    // Version of a restaurant's reviews for conditional GETs: the restaurant's version, which every review write bumps
+    public long getReviewsVersion(String restaurantId) {
+        Long cached = viewCache.cachedVersion(restaurantId);
+        if (cached != null) {
+            return cached;
+        }
+        return resilientReads.read("reviews.version", () -> loadReviewsVersion(restaurantId), restaurantId);
+    }
 
-        Review review = restaurant.getReviews().stream()
-                .filter(r -> r.getId().equals(reviewId))
-                .findFirst()
-                .orElseThrow(() -> new RuntimeException("Review not found with id: " + reviewId));
+    // Get a specific review, through the view cache
+    public ReviewDTO getReview(String restaurantId, String reviewId) {
+        ReviewDTO review = viewCache.cachedReview(reviewId);
+        if (review == null) {
+            review = resilientReads.read("reviews.single", () -> viewCache.review(reviewId, () -> reviewRepository.findById(reviewId)
+                    .map(this::convertToDTO)
+                    .orElseThrow(() -> new RuntimeException("Review not found with id: " + reviewId))), reviewId);
+        }
 
-        return convertToDTO(review);
+        // Cached by review id alone, so the restaurant in the path is checked here
+        if (!restaurantId.equals(review.getRestaurantId())) {
+            throw new RuntimeException("Review not found with id: " + reviewId);
+        }
+        return review;
     }
 
     // Update a review
     public ReviewDTO updateReview(String restaurantId, String reviewId, UpdateReviewDTO updateReviewDTO, String userEmail) {
         log.info("Updating review: {} for restaurant: {} by user: {}", reviewId, restaurantId, userEmail);
+        checkConstraints(updateReviewDTO);
 
-        Restaurant restaurant = restaurantRepository.findById(restaurantId)
-                .orElseThrow(() -> new RuntimeException("Restaurant not found with id: " + restaurantId));
-
-        Review review = restaurant.getReviews().stream()
-                .filter(r -> r.getId().equals(reviewId))
-                .findFirst()
-                .orElseThrow(() -> new RuntimeException("Review not found with id: " + reviewId));
+        // Ownership and the 48 hour edit window are part of the update filter, nothing is read first
+        LocalDateTime editedAt = LocalDateTime.now();
+        Review review = reviewRepository.updateIfEditable(restaurantId, reviewId, userEmail.toLowerCase(),
+                        editedAt.minusHours(48), editedAt,
+                        updateReviewDTO.getContent(), updateReviewDTO.getRating(), updateReviewDTO.getPhotoUrls())
+                .orElseThrow(() -> rejection(restaurantId, reviewId, userEmail, "update"));
 
-        // Check if user owns this review
-        if (!review.getUserEmail().equalsIgnoreCase(userEmail)) {
-            throw new RuntimeException("User can only update their own reviews");
-        }
-
-        // Check if review can still be edited (within 48 hours)
-        if (!review.canBeEdited()) {
-            throw new RuntimeException("Review can only be edited within 48 hours of creation");
-        }
-
-        // Update review fields
+        // The repository hands back the previous version, so the rating delta is known without another read
+        Integer previousRating = review.getRating();
         if (updateReviewDTO.getContent() != null) {
             review.setContent(updateReviewDTO.getContent());
         }
@@ -117,84 +167,125 @@ public class ReviewService {
         if (updateReviewDTO.getPhotoUrls() != null) {
             review.setPhotoUrls(updateReviewDTO.getPhotoUrls());
         }
+        review.setLastEditedAt(editedAt);
+        viewCache.invalidateReviews(restaurantId, reviewId);
 
-        review.setLastEditedAt(LocalDateTime.now());
-
-        // Update restaurant ratings
-        updateRestaurantRating(restaurant);
-
-        // Save restaurant
-        restaurantRepository.save(restaurant);
+        // Update restaurant ratings, or just its version when only the text or photos changed
+        if (!review.getRating().equals(previousRating)) {
+            updateRestaurantRating(restaurantId, previousRating, review.getRating());
+        } else {
+            restaurantRepository.bumpVersion(restaurantId);
+            viewCache.invalidateRestaurant(restaurantId);
+        }
 
         log.info("Review updated successfully: {}", reviewId);
-        return convertToDTO(review);
+        ReviewDTO updatedReview = convertToDTO(review);
+        reviewEventHub.reviewUpdated(updatedReview);
+        return updatedReview;
     }
 
     // Delete a review
     public void deleteReview(String restaurantId, String reviewId, String userEmail) {
         log.info("Deleting review: {} from restaurant: {} by user: {}", reviewId, restaurantId, userEmail);
 
-        Restaurant restaurant = restaurantRepository.findById(restaurantId)
-                .orElseThrow(() -> new RuntimeException("Restaurant not found with id: " + restaurantId));
+        Review review = reviewRepository.deleteIfOwned(restaurantId, reviewId, userEmail.toLowerCase())
+                .orElseThrow(() -> rejection(restaurantId, reviewId, userEmail, "delete"));
+        viewCache.invalidateReviews(restaurantId, reviewId);
+
+        // Update restaurant ratings
+        updateRestaurantRating(restaurantId, review.getRating(), null);
+
+        log.info("Review deleted successfully: {}", reviewId);
+        reviewEventHub.reviewDeleted(restaurantId, reviewId);
+    }
 
-        Review review = restaurant.getReviews().stream()
-                .filter(r -> r.getId().equals(reviewId))
-                .findFirst()
-                .orElseThrow(() -> new RuntimeException("Review not found with id: " + reviewId));
+    // Get a page of one user's reviews, newest first; reads only that user's reviews through its index
+    public PageResponseDTO<ReviewDTO> getReviewsByUser(String userEmail, String cursor, Integer size) {
+        int pageSize = resolvePageSize(size);
+        ReviewCursor after = cursor == null || cursor.isEmpty() ? null : ReviewCursor.decode(cursor);
+        return resilientReads.read("reviews.user",
+                () -> toPage(reviewRepository.findPageByUser(userEmail.toLowerCase(), after, pageSize + 1), pageSize),
+                userEmail.toLowerCase(), cursor, pageSize);
+    }
 
-        // Check if user owns this review
+    // Helper method to work out why a guarded review write matched nothing, only read on that failure path
+    private RuntimeException rejection(String restaurantId, String reviewId, String userEmail, String action) {
+        Review review = reviewRepository.findByIdAndRestaurantId(reviewId, restaurantId).orElse(null);
+        if (review == null) {
+            return new RuntimeException("Review not found with id: " + reviewId);
+        }
         if (!review.getUserEmail().equalsIgnoreCase(userEmail)) {
-            throw new RuntimeException("User can only delete their own reviews");
+            return new RuntimeException("User can only " + action + " their own reviews");
         }
+        return new RuntimeException("Review can only be edited within 48 hours of creation");
+    }
 
-        // Remove review from restaurant
-        restaurant.getReviews().removeIf(r -> r.getId().equals(reviewId));
-
-        // Update restaurant ratings
-        updateRestaurantRating(restaurant);
+    // Helper method to reject a review DTO before anything is written. The @Valid on the controller
+    // arguments doesn't run the javax constraints, so they're checked here as the importer does.
+    private void checkConstraints(Object dto) {
+        List<String> violations = DtoConstraints.violations(dto);
+        if (!violations.isEmpty()) {
+            throw new IllegalArgumentException(String.join("; ", violations));
+        }
+    }
 
-        // Save restaurant
-        restaurantRepository.save(restaurant);
+    // Helper method to move the restaurant's running rating aggregates by one review's change,
+    // a constant cost however many reviews the restaurant has
+    private void updateRestaurantRating(String restaurantId, Integer removedRating, Integer addedRating) {
+        RestaurantSummary restaurant = restaurantRepository.applyRatingChange(restaurantId, removedRating, addedRating)
+                .orElseThrow(() -> new RuntimeException("Restaurant not found with id: " + restaurantId));
+        leaderboardService.update(restaurant);
+        nearbySearchCache.invalidateAround(restaurant);
+        viewCache.invalidateRestaurant(restaurantId);
+        reviewEventHub.ratingChanged(restaurant);
 
-        log.info("Review deleted successfully: {}", reviewId);
+        log.debug("Updated restaurant {} rating to: {} ({} reviews)",
+                restaurant.getId(), restaurant.getAverageRating(), restaurant.getTotalReviews());
     }
 
-    // Get reviews by user email
-    public List<ReviewDTO> getReviewsByUser(String userEmail) {
-        List<Restaurant> restaurants = restaurantRepository.findAll();
+    // Helper method to serialize one page of a restaurant's reviews. The version is read first (and fails for
+    // a missing restaurant), so the page is never older than the ETag made from it.
+    private SerializedView reviewPageView(String restaurantId, ReviewCursor after, int pageSize) {
+        long version = loadReviewsVersion(restaurantId);
+        PageResponseDTO<ReviewDTO> page = toPage(reviewRepository.findPageByRestaurant(restaurantId, after, pageSize + 1), pageSize);
+        return SerializedView.of(objectMapper, page, version);
+    }
 
-        return restaurants.stream()
-                .flatMap(restaurant -> restaurant.getReviews().stream())
-                .filter(review -> review.getUserEmail().equalsIgnoreCase(userEmail))
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+    // Helper method to read the version through the version cache; callers are already inside a guarded read
+    private long loadReviewsVersion(String restaurantId) {
+        return viewCache.version(restaurantId, () -> restaurantRepository.findVersion(restaurantId)
+                .orElseThrow(() -> new RuntimeException("Restaurant not found with id: " + restaurantId)));
     }
 
-    // Helper method to update restaurant rating
-    private void updateRestaurantRating(Restaurant restaurant) {
-        List<Review> reviews = restaurant.getReviews();
+    // Helper method to turn pageSize + 1 fetched rows into a page; the extra row only says whether another page exists
+    private PageResponseDTO<ReviewDTO> toPage(List<Review> reviews, int pageSize) {
+        boolean hasNext = reviews.size() > pageSize;
+        if (hasNext) {
+            reviews = reviews.subList(0, pageSize);
+        }
 
-        if (reviews.isEmpty()) {
-            restaurant.setAverageRating(0.0);
-            restaurant.setTotalReviews(0);
-        } else {
-            double averageRating = reviews.stream()
-                    .mapToInt(Review::getRating)
-                    .average()
-                    .orElse(0.0);
+        return PageResponseDTO.<ReviewDTO>builder()
+                .content(reviews.stream()
+                        .map(this::convertToDTO)
+                        .collect(Collectors.toList()))
+                .size(reviews.size())
+                .hasNext(hasNext)
+                .nextCursor(hasNext ? ReviewCursor.of(reviews.get(reviews.size() - 1)).encode() : null)
+                .build();
+    }
 
-            restaurant.setAverageRating(Math.round(averageRating * 100.0) / 100.0); // Round to 2 decimal places
-            restaurant.setTotalReviews(reviews.size());
+    private int resolvePageSize(Integer size) {
+        if (size == null || size <= 0) {
+            return defaultPageSize;
         }
-
-        log.debug("Updated restaurant {} rating to: {} ({} reviews)",
-                restaurant.getId(), restaurant.getAverageRating(), restaurant.getTotalReviews());
+        return Math.min(size, maxPageSize);
     }
 
     // Helper method to convert Review to ReviewDTO
     private ReviewDTO convertToDTO(Review review) {
         return ReviewDTO.builder()
                 .id(review.getId())
+                .restaurantId(review.getRestaurantId())
                 .username(review.getUsername())
                 .userEmail(review.getUserEmail())
                 .content(review.getContent())
@@ -202,7 +293,7 @@ public class ReviewService {
                 .photoUrls(review.getPhotoUrls())
                 .createdAt(review.getCreatedAt())
                 .lastEditedAt(review.getLastEditedAt())
-                .canBeEdited(review.canBeEdited())
+                .editableUntil(review.editableUntil())
                 .build();
     }
 }
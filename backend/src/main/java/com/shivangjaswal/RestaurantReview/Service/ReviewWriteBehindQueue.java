@@ -0,0 +1,302 @@
+package com.shivangjaswal.RestaurantReview.Service;
+
+import com.shivangjaswal.RestaurantReview.Entity.Review;
+import com.shivangjaswal.RestaurantReview.Respository.RestaurantRepository;
+import com.shivangjaswal.RestaurantReview.Respository.ReviewRepository;
+import com.shivangjaswal.RestaurantReview.Respository.ReviewRepositoryCustom.InsertOutcome;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Optional write-behind path for new reviews. Submissions wait in a bounded queue and a single flusher
+ * writes them every few milliseconds: one unordered bulk upsert for all the reviews, then one rating
+ * aggregate update per restaurant in the batch, so a burst on a hot restaurant costs a couple of round
+ * trips per flush instead of two per review.
+ *
+ * A caller is only acknowledged once its batch is written, so an acknowledged review is never lost; the
+ * queue just lets concurrent callers share the write. A full queue makes callers wait up to the enqueue
+ * timeout and then rejects them, and on shutdown the queue stops accepting and flushes what it holds. A
+ * caller that waited past the ack timeout takes its review back out of the queue and is rejected; if the
+ * review is already being written it waits for that write instead, so a rejection always means not written.
+ * A batch write that fails part way (a timeout, a dropped connection) may have stored any of its reviews:
+ * its callers get a TransientDataAccessResourceException to retry (a retry of a stored review is then
+ * refused as a duplicate), and so does a caller whose batch is still being written a second ack timeout on.
+ *
+ * A rating aggregate update that fails is not retried as is (it may have been applied before the error);
+ * the restaurant's aggregates are recounted from its reviews on the following flushes until that succeeds,
+ * as are those of every restaurant in a batch whose write failed part way.
+ */
+@Component
+@ConditionalOnProperty(name = "app.reviews.write-behind.enabled", havingValue = "true")
+@Slf4j
+public class ReviewWriteBehindQueue {
+
+    private final ReviewRepository reviewRepository;
+    private final RestaurantRepository restaurantRepository;
+    private final LeaderboardService leaderboardService;
+    private final NearbySearchCache nearbySearchCache;
+    private final ReviewEventHub reviewEventHub;
+    private final ViewCache viewCache;
+
+    private final BlockingQueue<PendingReview> queue;
+    private final int batchSize;
+    private final long enqueueTimeoutMs;
+    private final long ackTimeoutMs;
+    private final ScheduledExecutorService flusher;
+    private volatile boolean accepting = true;
+    // Restaurants whose aggregates missed a batch and wait for a recount
+    private final Set<String> recounts = ConcurrentHashMap.newKeySet();
+
+    private final Counter submitted;
+    private final Counter rejected;
+    private final Counter written;
+    private final Counter duplicates;
+    private final Counter failed;
+    private final Counter recounted;
+    private final DistributionSummary batchSizes;
+    private final Timer flushTimer;
+
+    public ReviewWriteBehindQueue(ReviewRepository reviewRepository,
+                                  RestaurantRepository restaurantRepository,
+                                  LeaderboardService leaderboardService,
+                                  NearbySearchCache nearbySearchCache,
+                                  ReviewEventHub reviewEventHub,
+                                  ViewCache viewCache,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${app.reviews.write-behind.queue-capacity:10000}") int queueCapacity,
+                                  @Value("${app.reviews.write-behind.batch-size:500}") int batchSize,
+                                  @Value("${app.reviews.write-behind.flush-interval-ms:20}") long flushIntervalMs,
+                                  @Value("${app.reviews.write-behind.enqueue-timeout-ms:100}") long enqueueTimeoutMs,
+                                  @Value("${app.reviews.write-behind.ack-timeout-ms:5000}") long ackTimeoutMs) {
+        this.reviewRepository = reviewRepository;
+        this.restaurantRepository = restaurantRepository;
+        this.leaderboardService = leaderboardService;
+        this.nearbySearchCache = nearbySearchCache;
+        this.reviewEventHub = reviewEventHub;
+        this.viewCache = viewCache;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.enqueueTimeoutMs = enqueueTimeoutMs;
+        this.ackTimeoutMs = ackTimeoutMs;
+
+        meterRegistry.gauge("reviews.write_behind.queue.size", queue, BlockingQueue::size);
+        this.submitted = meterRegistry.counter("reviews.write_behind.submitted");
+        this.rejected = meterRegistry.counter("reviews.write_behind.rejected");
+        this.written = meterRegistry.counter("reviews.write_behind.written");
+        this.duplicates = meterRegistry.counter("reviews.write_behind.duplicates");
+        this.failed = meterRegistry.counter("reviews.write_behind.failed");
+        this.recounted = meterRegistry.counter("reviews.write_behind.recounted");
+        meterRegistry.gauge("reviews.write_behind.recounts.pending", recounts, Set::size);
+        this.batchSizes = meterRegistry.summary("reviews.write_behind.batch.size");
+        this.flushTimer = meterRegistry.timer("reviews.write_behind.flush");
+
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "review-write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.flusher.scheduleWithFixedDelay(this::flushAll, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    // Queue the review and block until the batch holding it is written (or rejected)
+    public void write(Review review) {
+        PendingReview pending = new PendingReview(review, new CompletableFuture<>());
+        try {
+            if (!accepting || !queue.offer(pending, enqueueTimeoutMs, TimeUnit.MILLISECONDS)) {
+                rejected.increment();
+                throw new RejectedExecutionException("Review queue is full, try again later");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted while queueing review", e);
+        }
+        submitted.increment();
+
+        try {
+            pending.done().get(ackTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new RuntimeException("Review write failed", e.getCause());
+        } catch (TimeoutException e) {
+            if (queue.remove(pending)) {
+                rejected.increment();
+                throw new RejectedExecutionException("Review was not written in time, try again later");
+            }
+            // Already in a batch being written: the flusher completes it either way
+            awaitWritten(pending);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for the review to be written", e);
+        }
+    }
+
+    private void awaitWritten(PendingReview pending) {
+        try {
+            pending.done().get(ackTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new TransientDataAccessResourceException("Review write is taking too long, it may or may not be stored");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new RuntimeException("Review write failed", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for the review to be written", e);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        accepting = false;
+        flusher.shutdown();
+        if (!flusher.awaitTermination(ackTimeoutMs, TimeUnit.MILLISECONDS)) {
+            log.warn("Review flusher did not stop in time, flushing the rest on the shutdown thread");
+        }
+        // Anything queued before accepting was switched off is written before the repositories go away
+        flushAll();
+        log.info("Review write-behind queue drained");
+    }
+
+    // Flush until the queue is empty, one batch at a time
+    private synchronized void flushAll() {
+        recountFailedAggregates();
+        List<PendingReview> batch = new ArrayList<>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            try {
+                flushTimer.record(() -> flush(batch));
+            } catch (RuntimeException e) {
+                // Keep the flusher alive. Some of the batch may be stored, so its restaurants are recounted and
+                // its callers told to retry rather than that their review failed.
+                log.error("Review batch write failed", e);
+                TransientDataAccessResourceException unknown =
+                        new TransientDataAccessResourceException("Review write was interrupted, it may or may not be stored", e);
+                for (PendingReview pending : batch) {
+                    recounts.add(pending.review().getRestaurantId());
+                    viewCache.invalidateReviews(pending.review().getRestaurantId(), null);
+                    pending.done().completeExceptionally(unknown);
+                }
+                failed.increment(batch.size());
+            }
+            batch.clear();
+        }
+    }
+
+    private void flush(List<PendingReview> batch) {
+        batchSizes.record(batch.size());
+
+        // A second review by the same user in one batch can be rejected without a round trip
+        List<PendingReview> unique = new ArrayList<>(batch.size());
+        Set<String> reviewers = new HashSet<>();
+        for (PendingReview pending : batch) {
+            Review review = pending.review();
+            if (reviewers.add(review.getRestaurantId() + "|" + review.getUserEmail())) {
+                unique.add(pending);
+            } else {
+                rejectDuplicate(pending);
+            }
+        }
+
+        List<InsertOutcome> outcomes = reviewRepository.insertAllIfNotReviewed(
+                unique.stream().map(PendingReview::review).toList());
+
+        // Rating count per restaurant of what was actually inserted
+        Map<String, Map<Integer, Integer>> newRatings = new HashMap<>();
+        List<PendingReview> inserted = new ArrayList<>(unique.size());
+        for (int i = 0; i < unique.size(); i++) {
+            PendingReview pending = unique.get(i);
+            switch (outcomes.get(i)) {
+                case INSERTED -> {
+                    inserted.add(pending);
+                    newRatings.computeIfAbsent(pending.review().getRestaurantId(), id -> new HashMap<>())
+                            .merge(pending.review().getRating(), 1, Integer::sum);
+                }
+                case ALREADY_REVIEWED -> rejectDuplicate(pending);
+                case FAILED -> {
+                    failed.increment();
+                    pending.done().completeExceptionally(new RuntimeException("Review could not be written"));
+                }
+            }
+        }
+
+        newRatings.forEach((restaurantId, ratings) -> {
+            try {
+                viewCache.invalidateReviews(restaurantId, null);
+                restaurantRepository.addRatings(restaurantId, ratings).ifPresent(restaurant -> {
+                    leaderboardService.update(restaurant);
+                    nearbySearchCache.invalidateAround(restaurant);
+                    viewCache.invalidateRestaurant(restaurantId);
+                    reviewEventHub.ratingChanged(restaurant);
+                });
+            } catch (RuntimeException e) {
+                // The reviews are stored; only this restaurant's aggregates missed the batch, so recount them
+                log.error("Rating aggregate update failed for restaurant {} ({} reviews), recounting", restaurantId, ratings, e);
+                recounts.add(restaurantId);
+            }
+        });
+
+        written.increment(inserted.size());
+        inserted.forEach(pending -> pending.done().complete(null));
+    }
+
+    // Set the aggregates of restaurants whose batch update failed from a fresh count of their reviews. The
+    // reset only applies if no other review write landed in between; otherwise it is tried again next flush.
+    private void recountFailedAggregates() {
+        for (String restaurantId : List.copyOf(recounts)) {
+            try {
+                Optional<Long> version = restaurantRepository.findVersion(restaurantId);
+                if (version.isEmpty()) {
+                    recounts.remove(restaurantId);
+                    continue;
+                }
+                restaurantRepository.resetRatingAggregates(restaurantId,
+                        reviewRepository.ratingCounts(restaurantId), version.get()).ifPresent(restaurant -> {
+                    recounts.remove(restaurantId);
+                    recounted.increment();
+                    leaderboardService.update(restaurant);
+                    nearbySearchCache.invalidateAround(restaurant);
+                    viewCache.invalidateRestaurant(restaurantId);
+                    reviewEventHub.ratingChanged(restaurant);
+                });
+            } catch (RuntimeException e) {
+                log.debug("Rating recount for restaurant {} failed, retrying on the next flush", restaurantId, e);
+            }
+        }
+    }
+
+    private void rejectDuplicate(PendingReview pending) {
+        duplicates.increment();
+        pending.done().completeExceptionally(new IllegalStateException("User has already reviewed this restaurant"));
+    }
+
+    private record PendingReview(Review review, CompletableFuture<Void> done) {
+    }
+}
@@ -0,0 +1,101 @@
+package com.shivangjaswal.RestaurantReview.Service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shivangjaswal.RestaurantReview.Utils.ETags;
+import com.shivangjaswal.RestaurantReview.Utils.StaleResponses;
+import lombok.Getter;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A response body serialized once and then served as-is: UTF-8 JSON bytes, plus a gzip copy when the JSON
+ * is big enough to be worth compressing, together with the version it was built from. Cached views hand
+ * these straight to the response, so a hit costs no DTO mapping, Jackson pass or compression.
+ */
+@Getter
+public class SerializedView {
+
+    // Below this, gzip saves too little to pay for itself
+    private static final int GZIP_MIN_BYTES = 1024;
+
+    private final long version;
+    private final byte[] json;
+    private final byte[] gzip;
+
+    private SerializedView(long version, byte[] json, byte[] gzip) {
+        this.version = version;
+        this.json = json;
+        this.gzip = gzip;
+    }
+
+    public static SerializedView of(ObjectMapper objectMapper, Object body, long version) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(body);
+            return new SerializedView(version, json, json.length >= GZIP_MIN_BYTES ? gzip(json) : null);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize view", e);
+        }
+    }
+
+    // Heap held by the entry, for the cache's weigher
+    public int weight() {
+        return 64 + json.length + (gzip != null ? gzip.length : 0);
+    }
+
+    // 200 with the ETag, gzip-encoded when the client takes it and a compressed copy exists; the gzip bytes
+    // get their own ETag (see ETags.gzip)
+    public ResponseEntity<byte[]> toResponse(String etag, String acceptEncoding) {
+        boolean compressed = gzip != null && acceptsGzip(acceptEncoding);
+        ResponseEntity.BodyBuilder response = (StaleResponses.isMarked()
+                ? StaleResponses.ok()
+                : ResponseEntity.ok().eTag(compressed ? ETags.gzip(etag) : etag).cacheControl(CacheControl.noCache()))
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (compressed) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(compressed ? gzip : json);
+    }
+
+    // 304 for the encoding the client holds, heldETag being the one of its ETags If-None-Match named
+    public static ResponseEntity<byte[]> notModified(String heldETag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .eTag(heldETag)
+                .cacheControl(CacheControl.noCache())
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                .build();
+    }
+
+    // "gzip" listed without q=0
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                return parts.length < 2 || !parts[1].replace(" ", "").matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+    private static byte[] gzip(byte[] json) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 4);
+        try (GZIPOutputStream zip = new GZIPOutputStream(out)) {
+            zip.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+}
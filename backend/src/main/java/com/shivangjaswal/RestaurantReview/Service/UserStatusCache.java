@@ -0,0 +1,60 @@
+package com.shivangjaswal.RestaurantReview.Service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.shivangjaswal.RestaurantReview.Respository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * What a token can't say about its user: whether the account is still enabled and unlocked, its current
+ * role, and the user's current token version (bumping it revokes every token issued before). Kept per user id, so an
+ * authenticated request normally costs no query. An entry is dropped as soon as the user's document
+ * changes on any node (see CacheInvalidationBus) and otherwise after app.auth.user-status.ttl-ms, which
+ * bounds how long a disabled user keeps access where change streams are off.
+ */
+@Component
+public class UserStatusCache {
+
+    private final UserRepository userRepository;
+    private final Cache<String, UserStatus> statuses;
+
+    public UserStatusCache(UserRepository userRepository,
+                           CacheInvalidationBus cacheInvalidationBus,
+                           MeterRegistry meterRegistry,
+                           @Value("${app.auth.user-status.max-entries:100000}") long maxEntries,
+                           @Value("${app.auth.user-status.ttl-ms:60000}") long ttlMs) {
+        this.userRepository = userRepository;
+        this.statuses = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(Duration.ofMillis(ttlMs))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, statuses, "userStatuses");
+        cacheInvalidationBus.onUserChange(this::invalidate);
+    }
+
+    // True when the user exists, may log in, still has the token's role, and the token is of the current version
+    public boolean isActive(String userId, long tokenVersion, String role) {
+        UserStatus status = statuses.get(userId, id -> userRepository.findStatusById(id)
+                .map(user -> new UserStatus(user.isEnabled() && user.isAccountNonLocked(), user.getRole(),
+                        user.getTokenVersion()))
+                .orElse(UserStatus.MISSING));
+        return status.active() && status.tokenVersion() == tokenVersion && Objects.equals(status.role(), role);
+    }
+
+    // After a write to the user on this node
+    public void invalidate(String userId) {
+        statuses.invalidate(userId);
+    }
+
+    private record UserStatus(boolean active, String role, long tokenVersion) {
+        // A deleted user, cached like any other so unknown ids don't cost a query each
+        static final UserStatus MISSING = new UserStatus(false, null, -1);
+    }
+}
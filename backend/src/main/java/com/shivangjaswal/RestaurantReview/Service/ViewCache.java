@@ -0,0 +1,172 @@
+package com.shivangjaswal.RestaurantReview.Service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.shivangjaswal.RestaurantReview.Dto.ReviewDTO;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Read-through cache of the hottest read views: restaurant details and the first page of a restaurant's
+ * reviews, both kept already serialized (see SerializedView), and single reviews. Each is keyed by a single
+ * id so an invalidation always hits the exact entry. Caffeine
+ * (W-TinyLFU admission) bounded by an estimate of each entry's size in bytes, with hit/miss/eviction
+ * metrics under cache.* tagged by cache name.
+ *
+ * Writers invalidate after their database write. Caffeine makes an invalidation wait for a load of the
+ * same key that is already running, so a reader that loaded the old document can't put it back after the
+ * invalidation; the next read loads the new one.
+ *
+ * It also holds what conditional GETs compare against: each restaurant's version (so a 304 needs neither
+ * the document nor a serialization) and a version of the whole restaurant collection for list endpoints,
+ * bumped with every restaurant invalidation.
+ */
+@Component
+public class ViewCache {
+
+    private final Cache<String, SerializedView> restaurants;
+    private final Cache<String, ReviewDTO> reviews;
+    private final Cache<String, SerializedView> reviewPages;
+    private final Cache<String, Long> versions;
+
+    // Starts at a random point so a restart doesn't hand out ETags of an earlier run
+    private final AtomicLong collectionVersion = new AtomicLong(ThreadLocalRandom.current().nextLong(1L << 48));
+
+    public ViewCache(MeterRegistry meterRegistry,
+                     @Value("${app.cache.restaurants.max-bytes:33554432}") long restaurantBytes,
+                     @Value("${app.cache.reviews.max-bytes:67108864}") long reviewBytes,
+                     @Value("${app.cache.versions.max-entries:100000}") long versionEntries,
+                     @Value("${app.cache.expire-after-write-ms:600000}") long expireAfterWriteMs) {
+        Duration ttl = Duration.ofMillis(expireAfterWriteMs);
+        this.restaurants = Caffeine.newBuilder()
+                .maximumWeight(restaurantBytes)
+                .weigher((String id, SerializedView restaurant) -> restaurant.weight())
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        // Single reviews and review pages share the review budget
+        this.reviews = Caffeine.newBuilder()
+                .maximumWeight(reviewBytes / 2)
+                .weigher((String id, ReviewDTO review) -> weight(review))
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.reviewPages = Caffeine.newBuilder()
+                .maximumWeight(reviewBytes / 2)
+                .weigher((String restaurantId, SerializedView page) -> page.weight())
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.versions = Caffeine.newBuilder()
+                .maximumSize(versionEntries)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, restaurants, "restaurantViews");
+        CaffeineCacheMetrics.monitor(meterRegistry, reviews, "reviewViews");
+        CaffeineCacheMetrics.monitor(meterRegistry, reviewPages, "reviewPages");
+        CaffeineCacheMetrics.monitor(meterRegistry, versions, "restaurantVersions");
+    }
+
+    public SerializedView restaurant(String id, Supplier<SerializedView> loader) {
+        return restaurants.get(id, key -> loader.get());
+    }
+
+    public ReviewDTO review(String reviewId, Supplier<ReviewDTO> loader) {
+        return reviews.get(reviewId, key -> loader.get());
+    }
+
+    // Only the first page (no cursor) at the default page size is cached; other pages are rarely shared
+    public SerializedView firstReviewPage(String restaurantId, Supplier<SerializedView> loader) {
+        return reviewPages.get(restaurantId, key -> loader.get());
+    }
+
+    public long version(String restaurantId, Supplier<Long> loader) {
+        return versions.get(restaurantId, key -> loader.get());
+    }
+
+    // Lookups without a loader, so a hit never has to wait behind a guarded database read (see ResilientReads)
+    public SerializedView cachedRestaurant(String id) {
+        return restaurants.getIfPresent(id);
+    }
+
+    public ReviewDTO cachedReview(String reviewId) {
+        return reviews.getIfPresent(reviewId);
+    }
+
+    public SerializedView cachedFirstReviewPage(String restaurantId) {
+        return reviewPages.getIfPresent(restaurantId);
+    }
+
+    public Long cachedVersion(String restaurantId) {
+        return versions.getIfPresent(restaurantId);
+    }
+
+    public long collectionVersion() {
+        return collectionVersion.get();
+    }
+
+    // After any write that bumped the restaurant's version, or its delete. The version goes last: a reader
+    // that sees the new version reads the views after they were dropped, so its ETag never names older data.
+    public void invalidateRestaurant(String id) {
+        restaurants.invalidate(id);
+        // Again after the bump: a page built in between carries the older version in its ETag
+        reviewPages.invalidate(id);
+        versions.invalidate(id);
+        collectionVersion.incrementAndGet();
+    }
+
+    // After a review of the restaurant is created, edited or deleted, before the restaurant's version is bumped
+    public void invalidateReviews(String restaurantId, String reviewId) {
+        if (reviewId != null) {
+            reviews.invalidate(reviewId);
+        }
+        reviewPages.invalidate(restaurantId);
+    }
+
+    // One review changed somewhere else; its restaurant's page goes with that restaurant's own change
+    public void invalidateReview(String reviewId) {
+        reviews.invalidate(reviewId);
+    }
+
+    // After a restaurant and all its reviews are deleted; scans the single-review cache, so only for that rare case
+    public void invalidateAllReviews(String restaurantId) {
+        reviews.asMap().values().removeIf(review -> restaurantId.equals(review.getRestaurantId()));
+        reviewPages.invalidate(restaurantId);
+    }
+
+    public void invalidateAll() {
+        restaurants.invalidateAll();
+        reviews.invalidateAll();
+        reviewPages.invalidateAll();
+        versions.invalidateAll();
+        collectionVersion.incrementAndGet();
+    }
+
+    // Rough heap size in bytes: strings at two bytes per char plus a fixed allowance for the object and boxes
+    private static int weight(ReviewDTO review) {
+        return 160 + chars(review.getId(), review.getRestaurantId(), review.getUsername(), review.getUserEmail(),
+                review.getContent()) + chars(review.getPhotoUrls());
+    }
+
+    private static int chars(String... values) {
+        int total = 0;
+        for (String value : values) {
+            total += value != null ? 40 + 2 * value.length() : 0;
+        }
+        return total;
+    }
+
+    private static int chars(List<String> values) {
+        return values != null ? chars(values.toArray(new String[0])) : 0;
+    }
+}
@@ -0,0 +1,83 @@
+package com.shivangjaswal.RestaurantReview.Utils;
+
+import javax.validation.constraints.DecimalMax;
+import javax.validation.constraints.DecimalMin;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotNull;
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Checks a DTO against the javax.validation constraints declared on its fields (NotBlank, NotNull,
+ * Min, Max, DecimalMin, DecimalMax), for code paths that don't go through a validated controller
+ * argument. Returns the constraint messages of every violation, empty when the DTO is valid.
+ */
+public final class DtoConstraints {
+
+    private static final Map<Class<?>, List<Field>> FIELDS = new ConcurrentHashMap<>();
+
+    private DtoConstraints() {
+    }
+
+    public static List<String> violations(Object dto) {
+        List<String> violations = new ArrayList<>();
+        for (Field field : FIELDS.computeIfAbsent(dto.getClass(), DtoConstraints::constrainedFields)) {
+            Object value;
+            try {
+                value = field.get(dto);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+
+            NotNull notNull = field.getAnnotation(NotNull.class);
+            if (notNull != null && value == null) {
+                violations.add(notNull.message());
+            }
+            NotBlank notBlank = field.getAnnotation(NotBlank.class);
+            if (notBlank != null && (value == null || value.toString().isBlank())) {
+                violations.add(notBlank.message());
+            }
+            if (!(value instanceof Number number)) {
+                continue;
+            }
+
+            BigDecimal decimal = new BigDecimal(number.toString());
+            Min min = field.getAnnotation(Min.class);
+            if (min != null && decimal.compareTo(BigDecimal.valueOf(min.value())) < 0) {
+                violations.add(min.message());
+            }
+            Max max = field.getAnnotation(Max.class);
+            if (max != null && decimal.compareTo(BigDecimal.valueOf(max.value())) > 0) {
+                violations.add(max.message());
+            }
+            DecimalMin decimalMin = field.getAnnotation(DecimalMin.class);
+            if (decimalMin != null && decimal.compareTo(new BigDecimal(decimalMin.value())) < (decimalMin.inclusive() ? 0 : 1)) {
+                violations.add(decimalMin.message());
+            }
+            DecimalMax decimalMax = field.getAnnotation(DecimalMax.class);
+            if (decimalMax != null && decimal.compareTo(new BigDecimal(decimalMax.value())) > (decimalMax.inclusive() ? 0 : -1)) {
+                violations.add(decimalMax.message());
+            }
+        }
+        return violations;
+    }
+
+    private static List<Field> constrainedFields(Class<?> type) {
+        return Arrays.stream(type.getDeclaredFields())
+                .filter(field -> field.isAnnotationPresent(NotNull.class)
+                        || field.isAnnotationPresent(NotBlank.class)
+                        || field.isAnnotationPresent(Min.class)
+                        || field.isAnnotationPresent(Max.class)
+                        || field.isAnnotationPresent(DecimalMin.class)
+                        || field.isAnnotationPresent(DecimalMax.class))
+                .peek(field -> field.setAccessible(true))
+                .toList();
+    }
+}
@@ -0,0 +1,83 @@
+package com.shivangjaswal.RestaurantReview.Utils;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.function.Supplier;
+
+/**
+ * Strong ETags built from resource versions, and the If-None-Match check against them. A body also served
+ * gzip-encoded has a second ETag for those bytes, since a strong validator names one exact representation.
+ */
+public final class ETags {
+
+    private static final String GZIP_SUFFIX = "-gz";
+
+    private ETags() {
+    }
+
+    // "part1-part2-..." including the quotes
+    public static String of(Object... parts) {
+        StringBuilder etag = new StringBuilder("\"");
+        for (int i = 0; i < parts.length; i++) {
+            if (i > 0) {
+                etag.append('-');
+            }
+            etag.append(parts[i]);
+        }
+        return etag.append('"').toString();
+    }
+
+    // 304 when the client already has this version, otherwise the body (only built then) with its ETag.
+    // no-cache lets browsers and the CDN keep the copy but revalidate it on every use.
+    // A version or body served stale (see StaleResponses) can't vouch for anything, so neither 304 nor ETag then.
+    public static <T> ResponseEntity<T> conditional(String ifNoneMatch, String etag, Supplier<T> body) {
+        if (!StaleResponses.isMarked() && matches(ifNoneMatch, etag)) {
+            return notModified(etag);
+        }
+        T value = body.get();
+        if (StaleResponses.isMarked()) {
+            return StaleResponses.ok().body(value);
+        }
+        return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache()).body(value);
+    }
+
+    public static <T> ResponseEntity<T> notModified(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(CacheControl.noCache()).build();
+    }
+
+    // The ETag of the gzip-encoded body: "part1-part2-gz"
+    public static String gzip(String etag) {
+        return etag.substring(0, etag.length() - 1) + GZIP_SUFFIX + '"';
+    }
+
+    // If-None-Match uses the weak comparison (RFC 9110 13.1.2): a W/ prefix is ignored, "*" matches anything
+    public static boolean matches(String ifNoneMatch, String etag) {
+        return matching(ifNoneMatch, etag, false) != null;
+    }
+
+    // For a body served in either encoding: which of its two ETags If-None-Match names, or null for neither
+    public static String matchingEncoded(String ifNoneMatch, String etag) {
+        return matching(ifNoneMatch, etag, true);
+    }
+
+    private static String matching(String ifNoneMatch, String etag, boolean encoded) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return null;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*")) {
+                return etag;
+            }
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals(etag) || (encoded && tag.equals(gzip(etag)))) {
+                return tag;
+            }
+        }
+        return null;
+    }
+}
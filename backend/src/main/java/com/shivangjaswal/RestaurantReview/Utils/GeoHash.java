@@ -0,0 +1,73 @@
+package com.shivangjaswal.RestaurantReview.Utils;
+
+/**
+ * Geohash cells and great-circle distances for the nearby-search cache.
+ */
+public final class GeoHash {
+
+    private static final String BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz";
+    private static final double EARTH_RADIUS_KM = 6371.0088;
+
+    private GeoHash() {
+    }
+
+    public static String encode(double latitude, double longitude, int precision) {
+        double[] latRange = {-90, 90};
+        double[] lngRange = {-180, 180};
+        StringBuilder hash = new StringBuilder(precision);
+        boolean evenBit = true;
+        int bit = 0;
+        int ch = 0;
+
+        while (hash.length() < precision) {
+            double[] range = evenBit ? lngRange : latRange;
+            double value = evenBit ? longitude : latitude;
+            double mid = (range[0] + range[1]) / 2;
+            if (value >= mid) {
+                ch |= 1 << (4 - bit);
+                range[0] = mid;
+            } else {
+                range[1] = mid;
+            }
+            evenBit = !evenBit;
+
+            if (++bit == 5) {
+                hash.append(BASE32.charAt(ch));
+                bit = 0;
+                ch = 0;
+            }
+        }
+        return hash.toString();
+    }
+
+    // {minLat, minLng, maxLat, maxLng} of the cell
+    public static double[] bounds(String hash) {
+        double[] latRange = {-90, 90};
+        double[] lngRange = {-180, 180};
+        boolean evenBit = true;
+
+        for (int i = 0; i < hash.length(); i++) {
+            int ch = BASE32.indexOf(hash.charAt(i));
+            for (int bit = 4; bit >= 0; bit--) {
+                double[] range = evenBit ? lngRange : latRange;
+                double mid = (range[0] + range[1]) / 2;
+                if ((ch >> bit & 1) == 1) {
+                    range[0] = mid;
+                } else {
+                    range[1] = mid;
+                }
+                evenBit = !evenBit;
+            }
+        }
+        return new double[]{latRange[0], lngRange[0], latRange[1], lngRange[1]};
+    }
+
+    public static double distanceKm(double lat1, double lng1, double lat2, double lng2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLng = Math.toRadians(lng2 - lng1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(dLng / 2) * Math.sin(dLng / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+}
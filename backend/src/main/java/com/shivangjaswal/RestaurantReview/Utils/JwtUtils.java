@@ -1,8 +1,14 @@
 package com.shivangjaswal.RestaurantReview.Utils;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.shivangjaswal.RestaurantReview.Entity.User;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
@@ -12,44 +18,118 @@ import org.springframework.stereotype.Component;
 
 import java.security.Key;
 import java.util.Date;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Issues and verifies the HS256 tokens. A token carries the user's id, email, full name, role and token
+ * version besides the username, so a request can be authenticated without loading the user. The key and
+ * the parser are built once at startup (a secret too short for HS256 fails there rather than on the first
+ * request). A verified token's claims are kept in a small bounded cache keyed by the whole token, signature
+ * included, until the token expires or for app.jwt.cache.max-ttl-ms, whichever is sooner, so a client
+ * sending the same token again skips the signature check. Only tokens that verified are cached.
+ */
 @Component
 public class JwtUtils {
     private static final Logger logger = LoggerFactory.getLogger(JwtUtils.class);
 
-    @Value("${app.jwtSecret:mySecretKey}")
-    private String jwtSecret;
+    public static final String CLAIM_USER_ID = "uid";
+    public static final String CLAIM_EMAIL = "email";
+    public static final String CLAIM_FULL_NAME = "name";
+    public static final String CLAIM_ROLE = "role";
+    public static final String CLAIM_TOKEN_VERSION = "ver";
 
-    @Value("${app.jwtExpirationMs:86400000}")
-    private int jwtExpirationMs;
+    private final int jwtExpirationMs;
+    private final Key key;
+    private final JwtParser parser;
+    private final Cache<String, VerifiedToken> verified;
+
+    public JwtUtils(MeterRegistry meterRegistry,
+                    @Value("${app.jwtSecret:mySecretKey}") String jwtSecret,
+                    @Value("${app.jwtExpirationMs:86400000}") int jwtExpirationMs,
+                    @Value("${app.jwt.cache.max-entries:10000}") long cacheEntries,
+                    @Value("${app.jwt.cache.max-ttl-ms:300000}") long cacheMaxTtlMs) {
+        this.jwtExpirationMs = jwtExpirationMs;
+        this.key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtSecret));
+        this.parser = Jwts.parserBuilder().setSigningKey(key).build();
+        this.verified = Caffeine.newBuilder()
+                .maximumSize(cacheEntries)
+                .expireAfter(new Expiry<String, VerifiedToken>() {
+                    @Override
+                    public long expireAfterCreate(String token, VerifiedToken claims, long currentTime) {
+                        long untilExpiry = claims.expiresAtMs() - System.currentTimeMillis();
+                        return TimeUnit.MILLISECONDS.toNanos(Math.max(0, Math.min(untilExpiry, cacheMaxTtlMs)));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String token, VerifiedToken claims, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String token, VerifiedToken claims, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, verified, "jwtClaims");
+    }
 
     public String generateJwtToken(Authentication authentication) {
         UserDetails userPrincipal = (UserDetails) authentication.getPrincipal();
+        if (userPrincipal instanceof User user) {
+            return generateTokenForUser(user);
+        }
         return generateTokenFromUsername(userPrincipal.getUsername());
     }
 
+    public String generateTokenForUser(User user) {
+        return Jwts.builder()
+                .setSubject(user.getUsername())
+                .claim(CLAIM_USER_ID, user.getId())
+                .claim(CLAIM_EMAIL, user.getEmail())
+                .claim(CLAIM_FULL_NAME, user.getFullName())
+                .claim(CLAIM_ROLE, user.getRole())
+                .claim(CLAIM_TOKEN_VERSION, user.getTokenVersion())
+                .setIssuedAt(new Date())
+                .setExpiration(new Date((new Date()).getTime() + jwtExpirationMs))
+                .signWith(key, SignatureAlgorithm.HS256)
+                .compact();
+    }
+
     public String generateTokenFromUsername(String username) {
         return Jwts.builder()
                 .setSubject(username)
                 .setIssuedAt(new Date())
                 .setExpiration(new Date((new Date()).getTime() + jwtExpirationMs))
-                .signWith(key(), SignatureAlgorithm.HS256)
+                .signWith(key, SignatureAlgorithm.HS256)
                 .compact();
     }
 
-    private Key key() {
-        return Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtSecret));
+    // The claims of a valid, unexpired token, or null; verifies the signature at most once per cached token
+    public Claims getVerifiedClaims(String token) {
+        VerifiedToken cached = verified.getIfPresent(token);
+        if (cached != null && cached.expiresAtMs() > System.currentTimeMillis()) {
+            return cached.claims();
+        }
+        Claims claims = parseClaims(token);
+        if (claims == null) {
+            return null;
+        }
+        // No exp claim: the cache's own limit applies
+        long expiresAtMs = claims.getExpiration() != null ? claims.getExpiration().getTime() : Long.MAX_VALUE;
+        verified.put(token, new VerifiedToken(claims, expiresAtMs));
+        return claims;
     }
 
-    public String getUserNameFromJwtToken(String token) {
-        return Jwts.parserBuilder().setSigningKey(key()).build()
-                .parseClaimsJws(token).getBody().getSubject();
+    public String getVerifiedUsername(String token) {
+        Claims claims = getVerifiedClaims(token);
+        return claims != null ? claims.getSubject() : null;
     }
 
-    public boolean validateJwtToken(String authToken) {
+    private Claims parseClaims(String token) {
         try {
-            Jwts.parserBuilder().setSigningKey(key()).build().parse(authToken);
-            return true;
+            return parser.parseClaimsJws(token).getBody();
         } catch (MalformedJwtException e) {
             logger.error("Invalid JWT token: {}", e.getMessage());
         } catch (ExpiredJwtException e) {
@@ -58,7 +138,12 @@ public class JwtUtils {
             logger.error("JWT token is unsupported: {}", e.getMessage());
         } catch (IllegalArgumentException e) {
             logger.error("JWT claims string is empty: {}", e.getMessage());
+        } catch (JwtException e) {
+            logger.error("JWT signature is invalid: {}", e.getMessage());
         }
-        return false;
+        return null;
+    }
+
+    private record VerifiedToken(Claims claims, long expiresAtMs) {
     }
 }
@@ -0,0 +1,49 @@
+package com.shivangjaswal.RestaurantReview.Utils;
+
+import com.shivangjaswal.RestaurantReview.Entity.RestaurantSummary;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Keyset position in the restaurant listing order (averageRating desc, createdAt desc, _id desc).
+ * Clients only ever see the encoded, URL-safe form.
+ */
+@Getter
+@AllArgsConstructor
+public class RestaurantCursor {
+
+    private static final String SEPARATOR = "|";
+
+    private final double averageRating;
+    private final LocalDateTime createdAt;
+    private final String id;
+
+    public static RestaurantCursor of(RestaurantSummary restaurant) {
+        double rating = restaurant.getAverageRating() != null ? restaurant.getAverageRating() : 0.0;
+        return new RestaurantCursor(rating, restaurant.getCreatedAt(), restaurant.getId());
+    }
+
+    public String encode() {
+        String raw = averageRating + SEPARATOR + (createdAt != null ? createdAt : "") + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static RestaurantCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", -1);
+            if (parts.length != 3 || parts[2].isEmpty()) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            LocalDateTime createdAt = parts[1].isEmpty() ? null : LocalDateTime.parse(parts[1]);
+            return new RestaurantCursor(Double.parseDouble(parts[0]), createdAt, parts[2]);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+}
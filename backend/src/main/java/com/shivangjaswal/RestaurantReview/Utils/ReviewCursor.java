@@ -0,0 +1,46 @@
+package com.shivangjaswal.RestaurantReview.Utils;
+
+import com.shivangjaswal.RestaurantReview.Entity.Review;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Keyset position in a restaurant's review list (createdAt desc, _id desc).
+ * Clients only ever see the encoded, URL-safe form.
+ */
+@Getter
+@AllArgsConstructor
+public class ReviewCursor {
+
+    private static final String SEPARATOR = "|";
+
+    private final LocalDateTime createdAt;
+    private final String id;
+
+    public static ReviewCursor of(Review review) {
+        return new ReviewCursor(review.getCreatedAt(), review.getId());
+    }
+
+    public String encode() {
+        String raw = createdAt + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static ReviewCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", -1);
+            if (parts.length != 2 || parts[1].isEmpty()) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return new ReviewCursor(LocalDateTime.parse(parts[0]), parts[1]);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.shivangjaswal.RestaurantReview.Utils;
+
+import com.shivangjaswal.RestaurantReview.Search.SearchHit;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position in a relevance-ranked search result (score desc, name, id).
+ * Clients only ever see the encoded, URL-safe form.
+ */
+public final class SearchCursor {
+
+    private static final String PREFIX = "s";
+    private static final String SEPARATOR = "|";
+
+    private SearchCursor() {
+    }
+
+    public static String encode(SearchHit hit) {
+        String raw = PREFIX + SEPARATOR + hit.getScore() + SEPARATOR + hit.getId() + SEPARATOR + hit.getName();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Tells a search cursor apart from a listing cursor (see RestaurantCursor), which never starts with the prefix
+    public static boolean isSearchCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            return raw.startsWith(PREFIX + SEPARATOR);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    public static SearchHit decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            // The name goes last since it is the only part that may contain the separator
+            String[] parts = raw.split("\\|", 4);
+            if (parts.length != 4 || !PREFIX.equals(parts[0]) || parts[2].isEmpty()) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return new SearchHit(parts[2], Integer.parseInt(parts[1]), parts[3]);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.shivangjaswal.RestaurantReview.Utils;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+/**
+ * Marks the current request as answered from a last known good value instead of the database, so its
+ * response goes out without an ETag, uncacheable and with a Warning header.
+ */
+public final class StaleResponses {
+
+    private static final String ATTRIBUTE = StaleResponses.class.getName() + ".STALE";
+
+    private StaleResponses() {
+    }
+
+    public static void mark() {
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        if (request != null) {
+            request.setAttribute(ATTRIBUTE, Boolean.TRUE, RequestAttributes.SCOPE_REQUEST);
+        }
+    }
+
+    public static boolean isMarked() {
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        return request != null && Boolean.TRUE.equals(request.getAttribute(ATTRIBUTE, RequestAttributes.SCOPE_REQUEST));
+    }
+
+    // 200 for a stale body: no ETag (it would name data newer than the body) and nothing may store it
+    public static ResponseEntity.BodyBuilder ok() {
+        return ResponseEntity.status(HttpStatus.OK)
+                .cacheControl(CacheControl.noStore())
+                .header("Warning", "110 - \"Response is Stale\"");
+    }
+}
@@ -0,0 +1,54 @@
+package com.shivangjaswal.RestaurantReview;
+
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.MongoException;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import org.bson.Document;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gate and settings for the tests that need a real MongoDB. They run against their own database, never the
+ * application's, and are skipped (not failed) when no server answers on the configured host, so a plain
+ * mvn test passes without one. Use with @EnabledIf("com.shivangjaswal.RestaurantReview.MongoTestSupport#available")
+ * or #replicaSet for change streams.
+ */
+public final class MongoTestSupport {
+
+	public static final String TEST_DATABASE = "spring.data.mongodb.database=restaurant_review_test";
+
+	private static final String URI = System.getProperty("test.mongodb.uri", "mongodb://localhost:27017");
+
+	private static Document hello;
+	private static boolean probed;
+
+	private MongoTestSupport() {
+	}
+
+	public static boolean available() {
+		return hello() != null;
+	}
+
+	public static boolean replicaSet() {
+		Document hello = hello();
+		return hello != null && hello.containsKey("setName");
+	}
+
+	private static synchronized Document hello() {
+		if (!probed) {
+			probed = true;
+			MongoClientSettings settings = MongoClientSettings.builder()
+					.applyConnectionString(new ConnectionString(URI))
+					.applyToClusterSettings(cluster -> cluster.serverSelectionTimeout(1, TimeUnit.SECONDS))
+					.build();
+			try (MongoClient client = MongoClients.create(settings)) {
+				hello = client.getDatabase("admin").runCommand(new Document("hello", 1));
+			} catch (MongoException e) {
+				hello = null;
+			}
+		}
+		return hello;
+	}
+}
@@ -0,0 +1,75 @@
+package com.shivangjaswal.RestaurantReview.Search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FuzzyIndexTest {
+
+	@Test
+	void toleratesTyposUpToTheWordsAllowance() {
+		FuzzyIndex index = new FuzzyIndex();
+		index.put("1", "Trattoria Romana", "Italian");
+
+		assertEquals(List.of("1"), ids(index, "trattoria"));
+		// Substitution, transposition and a missing letter: one edit each
+		assertEquals(List.of("1"), ids(index, "italain"));
+		assertEquals(List.of("1"), ids(index, "romna"));
+		// Two edits on a long word
+		assertEquals(List.of("1"), ids(index, "tratoira"));
+		// Three edits is too many
+		assertTrue(index.search("trtoira").isEmpty());
+	}
+
+	// Short words allow fewer typos, or they would match almost anything
+	@Test
+	void shortWordsAllowFewerTypos() {
+		FuzzyIndex index = new FuzzyIndex();
+		index.put("1", "Pho 24", "Vietnamese");
+
+		assertEquals(List.of("1"), ids(index, "pho"));
+		assertEquals(List.of("1"), ids(index, "phe"));
+		// Two characters: exact only
+		assertTrue(index.search("25").isEmpty());
+		// Five characters: one edit, not two
+		index.put("2", "Pasta", "Italian");
+		assertEquals(List.of("2"), ids(index, "psata"));
+		assertTrue(index.search("psatz").isEmpty());
+	}
+
+	@Test
+	void closerMatchesRankFirstAndEveryWordMustMatch() {
+		FuzzyIndex index = new FuzzyIndex();
+		index.put("1", "Burger Barn", "American");
+		index.put("2", "Burgers Bar", "American");
+		index.put("3", "Burger King", "Fast Food");
+
+		// Exact matches tie and fall back to name order; "Burgers" is one edit away
+		assertEquals(List.of("1", "3", "2"), ids(index, "burger"));
+		assertEquals(List.of("1", "2"), ids(index, "burger barn"));
+		assertEquals(List.of("2", "1"), ids(index, "burgers bar"));
+		assertTrue(index.search("burger sushi").isEmpty());
+	}
+
+	@Test
+	void updatesAndRemovalsReplaceTheIndexedWords() {
+		FuzzyIndex index = new FuzzyIndex();
+		index.put("1", "Sushi Zen", "Japanese");
+		index.put("1", "Ramen Zen", "Japanese");
+
+		assertTrue(index.search("sushi").isEmpty());
+		assertEquals(List.of("1"), ids(index, "ramne"));
+
+		index.remove("1");
+		assertTrue(index.search("ramen").isEmpty());
+		assertTrue(index.search("").isEmpty());
+	}
+
+	private static List<String> ids(FuzzyIndex index, String query) {
+		return index.search(query).stream().map(SearchHit::getId).collect(Collectors.toList());
+	}
+}
@@ -0,0 +1,39 @@
+package com.shivangjaswal.RestaurantReview.Search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TrigramIndexTest {
+
+	@Test
+	void findsSubstringMatchesRankedByField() {
+		TrigramIndex index = new TrigramIndex();
+		index.put("1", "Pizza Palace", "Italian", "Wood fired pizza");
+		index.put("2", "Taco Town", "Mexican", "Tacos and burritos");
+		index.put("3", "Luigi's", "Italian", "Family pizza place");
+
+		List<String> ids = index.search("PIZZA").stream().map(SearchHit::getId).collect(Collectors.toList());
+
+		assertEquals(List.of("1", "3"), ids);
+	}
+
+	@Test
+	void shortQueriesAndUpdatesAreHandled() {
+		TrigramIndex index = new TrigramIndex();
+		index.put("1", "Pho Bar", "Vietnamese", null);
+		assertEquals(1, index.search("ph").size());
+
+		index.put("1", "Noodle Bar", "Vietnamese", null);
+		assertTrue(index.search("pho").isEmpty());
+		assertEquals(1, index.search("noodle").size());
+
+		index.remove("1");
+		assertTrue(index.search("noodle").isEmpty());
+		assertEquals(0, index.size());
+	}
+}
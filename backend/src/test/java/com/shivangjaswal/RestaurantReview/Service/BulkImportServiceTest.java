@@ -0,0 +1,182 @@
+package com.shivangjaswal.RestaurantReview.Service;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shivangjaswal.RestaurantReview.Dto.ImportErrorDTO;
+import com.shivangjaswal.RestaurantReview.Dto.ImportReportDTO;
+import com.shivangjaswal.RestaurantReview.Entity.Restaurant;
+import com.shivangjaswal.RestaurantReview.Entity.Review;
+import com.shivangjaswal.RestaurantReview.Respository.RestaurantRepository;
+import com.shivangjaswal.RestaurantReview.Respository.ReviewRepository;
+import com.shivangjaswal.RestaurantReview.Respository.ReviewRepositoryCustom.InsertOutcome;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BulkImportServiceTest {
+
+	// The collections the importer writes to, in memory
+	private final Map<String, Restaurant> restaurants = new HashMap<>();
+	private final Set<String> reviewed = new HashSet<>();
+	private final Map<String, Map<Integer, Integer>> ratingsAdded = new HashMap<>();
+	// Restaurants written by the time of each addRatings call
+	private final List<Integer> restaurantsAtRatings = new ArrayList<>();
+
+	private final BulkImportService importer = importer(1000, 100);
+
+	@Test
+	void importsRecordsAndReportsBadLinesByNumber() throws IOException {
+		ImportReportDTO report = importer.importNdjson(ndjson(
+				"{\"type\":\"restaurant\",\"ref\":\"r1\",\"name\":\"Chez Test\",\"cuisineType\":\"French\",\"address\":\"1 Rue\",\"city\":\"Paris\"}",
+				"{\"type\":\"review\",\"restaurantRef\":\"r1\",\"username\":\"ann\",\"userEmail\":\"Ann@example.com\",\"content\":\"Great\",\"rating\":5}",
+				"{\"type\":\"review\",\"restaurantRef\":\"r1\",\"username\":\"ann\",\"userEmail\":\"ann@example.com\",\"content\":\"Again\",\"rating\":1}",
+				"",
+				"{\"type\":\"review\",\"restaurantRef\":\"r1\",\"username\":\"bob\",\"userEmail\":\"bob@example.com\",\"content\":\"Meh\",\"rating\":9}",
+				"{not json",
+				"{\"type\":\"review\",\"restaurantRef\":\"r2\",\"username\":\"bob\",\"userEmail\":\"bob@example.com\",\"content\":\"Early\",\"rating\":3}",
+				"{\"type\":\"restaurant\",\"ref\":\"r2\",\"name\":\"Later\",\"cuisineType\":\"Thai\",\"address\":\"2 Rue\",\"city\":\"Paris\"}",
+				"{\"type\":\"restaurant\",\"ref\":\"r2\",\"name\":\"Twice\",\"cuisineType\":\"Thai\",\"address\":\"3 Rue\",\"city\":\"Paris\"}",
+				"{\"type\":\"menu\"}"));
+
+		assertEquals(10, report.getLinesRead());
+		assertEquals(2, report.getRestaurantsCreated());
+		assertEquals(1, report.getReviewsCreated());
+		assertEquals(List.of(3L, 5L, 6L, 7L, 9L, 10L), failedLines(report));
+		assertEquals("User has already reviewed this restaurant", message(report, 3));
+		assertEquals("Rating cannot exceed 5", message(report, 5));
+		// A ref is only known from its restaurant's line on
+		assertEquals("Unknown restaurantRef: r2 (a restaurant's line must come before its reviews)", message(report, 7));
+		assertEquals("Duplicate ref: r2", message(report, 9));
+
+		String chezTest = restaurants.values().stream()
+				.filter(restaurant -> restaurant.getName().equals("Chez Test")).findFirst().orElseThrow().getId();
+		assertEquals(Map.of(chezTest, Map.of(5, 1)), ratingsAdded);
+	}
+
+	@Test
+	void reviewsOfExistingRestaurantsAreCheckedById() throws IOException {
+		restaurants.put("existing", Restaurant.builder().id("existing").name("Old").build());
+
+		ImportReportDTO report = importer.importNdjson(ndjson(
+				"{\"type\":\"review\",\"restaurantId\":\"existing\",\"username\":\"ann\",\"userEmail\":\"ann@example.com\",\"content\":\"Fine\",\"rating\":4}",
+				"{\"type\":\"review\",\"restaurantId\":\"missing\",\"username\":\"ann\",\"userEmail\":\"ann@example.com\",\"content\":\"Fine\",\"rating\":4}"));
+
+		assertEquals(1, report.getReviewsCreated());
+		assertEquals("Restaurant not found with id: missing", message(report, 2));
+	}
+
+	// An overlong line is skipped to its end and reported; the line after it still imports
+	@Test
+	void overlongLineIsReportedAndSkipped() throws IOException {
+		BulkImportService shortLines = importer(1000, 100);
+		ReflectionTestUtils.setField(shortLines, "maxLineChars", 200);
+
+		ImportReportDTO report = shortLines.importNdjson(ndjson(
+				"{\"type\":\"restaurant\",\"name\":\"" + "x".repeat(500) + "\",\"cuisineType\":\"French\",\"address\":\"1 Rue\",\"city\":\"Paris\"}",
+				"{\"type\":\"restaurant\",\"name\":\"Short\",\"cuisineType\":\"French\",\"address\":\"1 Rue\",\"city\":\"Paris\"}\r"));
+
+		assertEquals(2, report.getLinesRead());
+		assertEquals(1, report.getRestaurantsCreated());
+		assertEquals("Line longer than 200 characters", message(report, 1));
+	}
+
+	// Per-restaurant state is bounded: refs past the limit fail, rating counts go out every batch
+	@Test
+	void perRestaurantStateIsBounded() throws IOException {
+		BulkImportService small = importer(2, 3);
+		StringBuilder file = new StringBuilder();
+		for (int i = 1; i <= 4; i++) {
+			file.append("{\"type\":\"restaurant\",\"ref\":\"r").append(i)
+					.append("\",\"name\":\"R").append(i).append("\",\"cuisineType\":\"Thai\",\"address\":\"1 Rue\",\"city\":\"Paris\"}\n")
+					.append("{\"type\":\"review\",\"restaurantRef\":\"r").append(i)
+					.append("\",\"username\":\"ann\",\"userEmail\":\"ann@example.com\",\"content\":\"Good\",\"rating\":4}\n");
+		}
+
+		ImportReportDTO report = small.importNdjson(ndjson(file.toString()));
+
+		assertEquals(3, report.getRestaurantsCreated());
+		assertEquals(3, report.getReviewsCreated());
+		assertEquals("More than 3 refs in one import, split the file or refer to restaurants by id", message(report, 7));
+		// The first two restaurants' counts went out mid-import, not all at the end
+		assertEquals(List.of(2, 2, 3), restaurantsAtRatings);
+	}
+
+	private BulkImportService importer(int batchSize, int maxRefs) {
+		SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+		RestaurantRepository restaurantRepository = restaurantRepository();
+		BulkImportService importer = new BulkImportService(restaurantRepository, reviewRepository(),
+				new RestaurantSearchService(restaurantRepository), new NearbySearchCache(restaurantRepository),
+				new LeaderboardService(restaurantRepository, meterRegistry, 100, 100),
+				new ViewCache(meterRegistry, 1 << 20, 1 << 20, 1000, 60_000),
+				// Configured like Spring Boot's
+				new ObjectMapper().findAndRegisterModules().disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES));
+		ReflectionTestUtils.setField(importer, "batchSize", batchSize);
+		ReflectionTestUtils.setField(importer, "maxReportedErrors", 100);
+		ReflectionTestUtils.setField(importer, "maxLineChars", 65536);
+		ReflectionTestUtils.setField(importer, "maxRefs", maxRefs);
+		return importer;
+	}
+
+	@SuppressWarnings("unchecked")
+	private RestaurantRepository restaurantRepository() {
+		return (RestaurantRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+				new Class<?>[]{RestaurantRepository.class}, (proxy, method, args) -> switch (method.getName()) {
+					case "insertAllUnordered" -> {
+						((List<Restaurant>) args[0]).forEach(restaurant -> restaurants.put(restaurant.getId(), restaurant));
+						yield Map.of();
+					}
+					case "findExistingIds" -> ((Collection<String>) args[0]).stream()
+							.filter(restaurants::containsKey).collect(Collectors.toSet());
+					case "addRatings" -> {
+						restaurantsAtRatings.add(restaurants.size());
+						ratingsAdded.put((String) args[0], (Map<Integer, Integer>) args[1]);
+						yield Optional.empty();
+					}
+					default -> throw new UnsupportedOperationException(method.getName());
+				});
+	}
+
+	@SuppressWarnings("unchecked")
+	private ReviewRepository reviewRepository() {
+		return (ReviewRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+				new Class<?>[]{ReviewRepository.class}, (proxy, method, args) -> {
+					if (method.getName().equals("insertAllIfNotReviewed")) {
+						return ((List<Review>) args[0]).stream()
+								.map(review -> reviewed.add(review.getRestaurantId() + "|" + review.getUserEmail())
+										? InsertOutcome.INSERTED : InsertOutcome.ALREADY_REVIEWED)
+								.collect(Collectors.toList());
+					}
+					throw new UnsupportedOperationException(method.getName());
+				});
+	}
+
+	private static ByteArrayInputStream ndjson(String... lines) {
+		return new ByteArrayInputStream(String.join("\n", lines).getBytes(StandardCharsets.UTF_8));
+	}
+
+	// Lines are reported as their batch is written, not in file order
+	private static List<Long> failedLines(ImportReportDTO report) {
+		return report.getErrors().stream().map(ImportErrorDTO::getLine).sorted().collect(Collectors.toList());
+	}
+
+	private static String message(ImportReportDTO report, long line) {
+		return report.getErrors().stream().filter(error -> error.getLine() == line)
+				.map(ImportErrorDTO::getMessage).findFirst().orElse(null);
+	}
+}
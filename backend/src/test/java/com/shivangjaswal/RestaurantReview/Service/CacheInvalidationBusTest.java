@@ -0,0 +1,87 @@
+package com.shivangjaswal.RestaurantReview.Service;
+
+import com.shivangjaswal.RestaurantReview.Dto.CreateRestaurantDTO;
+import com.shivangjaswal.RestaurantReview.Dto.UpdateRestaurantDTO;
+import com.shivangjaswal.RestaurantReview.MongoTestSupport;
+import com.shivangjaswal.RestaurantReview.RestaurantReviewApplication;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIf;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Two application contexts on one database, like two replicas behind the load balancer: a write through
+ * one must evict the other's cached view within the lag bound. Needs MongoDB running as a replica set (one
+ * node is enough: mongod --replSet rs0, then rs.initiate()); skipped without one. Uses the test database.
+ */
+@EnabledIf("com.shivangjaswal.RestaurantReview.MongoTestSupport#replicaSet")
+class CacheInvalidationBusTest {
+
+	private static final int ROUNDS = 50;
+	private static final long MAX_LAG_MS = 5000;
+
+	private static ConfigurableApplicationContext nodeA;
+	private static ConfigurableApplicationContext nodeB;
+
+	@BeforeAll
+	static void startNodes() {
+		nodeA = startNode();
+		nodeB = startNode();
+	}
+
+	@AfterAll
+	static void stopNodes() {
+		if (nodeB != null) {
+			nodeB.close();
+		}
+		if (nodeA != null) {
+			nodeA.close();
+		}
+	}
+
+	@Test
+	void writeOnOneNodeEvictsTheOtherNodesView() throws Exception {
+		RestaurantService writer = nodeA.getBean(RestaurantService.class);
+		RestaurantService reader = nodeB.getBean(RestaurantService.class);
+
+		CreateRestaurantDTO restaurant = new CreateRestaurantDTO();
+		restaurant.setName("Lag Test");
+		restaurant.setCuisineType("Test");
+		restaurant.setAddress("1 Test Street");
+		restaurant.setCity("Testville");
+		String id = writer.createRestaurant(restaurant).getId();
+
+		try {
+			for (int round = 0; round < ROUNDS; round++) {
+				// Cached on node B before node A writes
+				reader.getRestaurantView(id);
+
+				UpdateRestaurantDTO update = new UpdateRestaurantDTO();
+				update.setName("Lag Test " + round);
+				long written = writer.updateRestaurant(id, update).getVersion();
+
+				long start = System.nanoTime();
+				while (reader.getRestaurantView(id).getVersion() < written) {
+					assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(MAX_LAG_MS),
+							"Node B still served the old view after " + MAX_LAG_MS + " ms");
+					Thread.sleep(1);
+				}
+			}
+		} finally {
+			writer.deleteRestaurant(id);
+		}
+	}
+
+	private static ConfigurableApplicationContext startNode() {
+		return new SpringApplicationBuilder(RestaurantReviewApplication.class)
+				.properties("server.port=0", "spring.jmx.enabled=false", "app.cache.invalidation.mode=change-stream",
+						MongoTestSupport.TEST_DATABASE)
+				.run();
+	}
+}
@@ -0,0 +1,145 @@
+package com.shivangjaswal.RestaurantReview.Service;
+
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.UpdateDescription;
+import com.shivangjaswal.RestaurantReview.Entity.RestaurantSummary;
+import com.shivangjaswal.RestaurantReview.Respository.LocalWrites;
+import com.shivangjaswal.RestaurantReview.Respository.RestaurantRepository;
+import com.shivangjaswal.RestaurantReview.Utils.GeoHash;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.BsonDocument;
+import org.bson.BsonDouble;
+import org.bson.BsonInt32;
+import org.bson.BsonInt64;
+import org.bson.BsonString;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.geo.Distance;
+import org.springframework.data.geo.GeoResult;
+import org.springframework.data.geo.Metrics;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The bus's handling of single restaurant events, fed straight in without a change stream.
+ */
+class CacheInvalidationEventsTest {
+
+	private final Map<String, RestaurantSummary> restaurants = new ConcurrentHashMap<>(Map.of(
+			"paris", restaurant("paris", 48.8566, 2.3522),
+			"new-york", restaurant("new-york", 40.7128, -74.0060)));
+	private final List<String> queries = new ArrayList<>();
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final RestaurantRepository repository = repository();
+	private final NearbySearchCache nearbySearchCache = new NearbySearchCache(repository);
+	private final LocalWrites localWrites = new LocalWrites(60_000, 1000);
+	private final CacheInvalidationBus bus = new CacheInvalidationBus(null, repository,
+			new ViewCache(meterRegistry, 1 << 20, 1 << 20, 1000, 60_000), new RestaurantSearchService(repository),
+			new LeaderboardService(repository, meterRegistry, 100, 100), nearbySearchCache, localWrites,
+			meterRegistry, "local", 1000);
+
+	CacheInvalidationEventsTest() {
+		ReflectionTestUtils.setField(nearbySearchCache, "ttlMs", 60_000L);
+		ReflectionTestUtils.setField(nearbySearchCache, "maxCells", 100);
+	}
+
+	// This node's own write already updated its read models, its echo is skipped
+	@Test
+	void ownWritesAreSkipped() {
+		cacheBothCities();
+		localWrites.record("paris", 7);
+
+		bus.apply(updated("paris", 7, "ratingSum", "totalReviews"));
+		cacheBothCities();
+		assertEquals(List.of("findNear", "findNear"), queries);
+	}
+
+	// Another node's rating change is read back once and drops only the cells around the restaurant
+	@Test
+	void remoteRatingChangeDropsOnlyNearbyCells() {
+		cacheBothCities();
+
+		bus.apply(updated("paris", 8, "ratingSum", "totalReviews"));
+		cacheBothCities();
+		assertEquals(List.of("findNear", "findNear", "findSummariesByIds", "findNear"), queries);
+	}
+
+	// A review's text was edited: only the cached views change
+	@Test
+	void versionOnlyBumpIsNotReadBack() {
+		cacheBothCities();
+
+		bus.apply(updated("paris", 9, "version"));
+		cacheBothCities();
+		assertEquals(List.of("findNear", "findNear"), queries);
+	}
+
+	// A restaurant moved across the ocean: cells that list it and cells where it is now both go
+	@Test
+	void movedRestaurantDropsOldAndNewCells() {
+		cacheBothCities();
+
+		restaurants.put("paris", restaurant("paris", 40.7130, -74.0062));
+		bus.apply(updated("paris", 10, "location"));
+		cacheBothCities();
+		assertEquals(List.of("findNear", "findNear", "findSummariesByIds", "findNear", "findNear"), queries);
+	}
+
+	private void cacheBothCities() {
+		nearbySearchCache.nearby(48.8566, 2.3522, 1.0, null, 100);
+		nearbySearchCache.nearby(40.7128, -74.0060, 1.0, null, 100);
+	}
+
+	private static ChangeStreamDocument<Document> updated(String id, long version, String... fields) {
+		BsonDocument updatedFields = new BsonDocument("version", new BsonInt64(version));
+		for (String field : fields) {
+			updatedFields.put(field, new BsonInt32(1));
+		}
+		return new ChangeStreamDocument<>("update", null,
+				new BsonDocument("db", new BsonString("test")).append("coll", new BsonString("restaurants")), null,
+				null, null, new BsonDocument("_id", new BsonString(id)), null,
+				new UpdateDescription(List.of(), updatedFields), null, null, null, null, null);
+	}
+
+	@SuppressWarnings("unchecked")
+	private RestaurantRepository repository() {
+		return (RestaurantRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+				new Class<?>[]{RestaurantRepository.class}, (proxy, method, args) -> switch (method.getName()) {
+					case "findNear" -> {
+						queries.add("findNear");
+						yield near((double) args[0], (double) args[1], (Double) args[2]);
+					}
+					case "findSummariesByIds" -> {
+						queries.add("findSummariesByIds");
+						yield ((Collection<String>) args[0]).stream().map(restaurants::get).collect(Collectors.toList());
+					}
+					case "findTopRated" -> List.of();
+					default -> throw new UnsupportedOperationException(method.getName());
+				});
+	}
+
+	private List<GeoResult<RestaurantSummary>> near(double latitude, double longitude, Double maxDistanceKm) {
+		return restaurants.values().stream()
+				.map(restaurant -> new GeoResult<>(restaurant, new Distance(GeoHash.distanceKm(latitude, longitude,
+						restaurant.getLocation().getY(), restaurant.getLocation().getX()), Metrics.KILOMETERS)))
+				.filter(result -> result.getDistance().getValue() <= maxDistanceKm)
+				.collect(Collectors.toList());
+	}
+
+	private static RestaurantSummary restaurant(String id, double latitude, double longitude) {
+		return RestaurantSummary.builder().id(id).name(id).cuisineType("Test").city(id)
+				.averageRating(4.0).totalReviews(1).version(1L)
+				.location(new GeoJsonPoint(longitude, latitude)).build();
+	}
+}
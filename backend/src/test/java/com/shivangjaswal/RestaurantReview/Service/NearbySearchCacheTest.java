@@ -0,0 +1,114 @@
+package com.shivangjaswal.RestaurantReview.Service;
+
+import com.shivangjaswal.RestaurantReview.Entity.RestaurantSummary;
+import com.shivangjaswal.RestaurantReview.Respository.RestaurantRepository;
+import com.shivangjaswal.RestaurantReview.Utils.GeoHash;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.geo.Distance;
+import org.springframework.data.geo.GeoResult;
+import org.springframework.data.geo.Metrics;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NearbySearchCacheTest {
+
+	private static final int SIDE = 40;
+
+	// A dense block of 40 x 40 restaurants about 20 m apart, far more than one candidate list holds
+	private final List<RestaurantSummary> restaurants = grid(48.8566, 2.3522, SIDE, 0.0002);
+	private final AtomicInteger queries = new AtomicInteger();
+	private final NearbySearchCache cache = new NearbySearchCache(repository());
+
+	NearbySearchCacheTest() {
+		ReflectionTestUtils.setField(cache, "ttlMs", 60_000L);
+		ReflectionTestUtils.setField(cache, "maxCells", 100);
+	}
+
+	// Points anywhere in a cell get their own k nearest, even where the cell center's list falls short
+	@Test
+	void nearestKMatchesAFullScanAcrossTheCell() {
+		String cell = GeoHash.encode(48.8566, 2.3522, 7);
+		double[] bounds = GeoHash.bounds(cell);
+		double[][] points = {
+				{bounds[0], bounds[1]}, {bounds[0], bounds[3]}, {bounds[2], bounds[1]}, {bounds[2], bounds[3]},
+				{(bounds[0] + bounds[2]) / 2, (bounds[1] + bounds[3]) / 2}};
+		for (double[] point : points) {
+			assertEquals(fullScan(point[0], point[1], null, 25), ids(cache.nearby(point[0], point[1], null, 25, 100)));
+		}
+	}
+
+	// A radius holding more restaurants than the candidate limit still returns all of them
+	@Test
+	void radiusSearchIsNotCutOffAtTheCandidateLimit() {
+		List<String> expected = fullScan(48.8566, 2.3522, 0.25, 1000);
+		assertTrue(expected.size() > 500);
+		assertEquals(expected, ids(cache.nearby(48.8566, 2.3522, 0.25, null, 1000)));
+	}
+
+	// A rating change drops the cells that list the restaurant, not the others
+	@Test
+	void ratingChangeDropsOnlyCellsThatHoldTheRestaurant() {
+		cache.nearby(48.8566, 2.3522, 0.05, null, 100);
+		cache.nearby(40.7128, -74.0060, 0.05, null, 100);
+		int before = queries.get();
+
+		// The one at the center of the block
+		cache.invalidateAround(restaurants.get(SIDE / 2 * SIDE + SIDE / 2));
+		cache.nearby(48.8566, 2.3522, 0.05, null, 100);
+		cache.nearby(40.7128, -74.0060, 0.05, null, 100);
+		assertEquals(before + 1, queries.get());
+	}
+
+	// The repository's $geoNear, over the in-memory restaurants
+	private RestaurantRepository repository() {
+		return (RestaurantRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+				new Class<?>[]{RestaurantRepository.class}, (proxy, method, args) -> {
+					if (method.getName().equals("findNear")) {
+						queries.incrementAndGet();
+						return near((double) args[0], (double) args[1], (Double) args[2], (int) args[3]);
+					}
+					throw new UnsupportedOperationException(method.getName());
+				});
+	}
+
+	private List<GeoResult<RestaurantSummary>> near(double latitude, double longitude, Double maxDistanceKm, int limit) {
+		return restaurants.stream()
+				.map(restaurant -> new GeoResult<>(restaurant, new Distance(GeoHash.distanceKm(latitude, longitude,
+						restaurant.getLocation().getY(), restaurant.getLocation().getX()), Metrics.KILOMETERS)))
+				.filter(result -> maxDistanceKm == null || result.getDistance().getValue() <= maxDistanceKm)
+				.sorted(Comparator.comparingDouble(result -> result.getDistance().getValue()))
+				.limit(limit)
+				.collect(Collectors.toList());
+	}
+
+	private List<String> fullScan(double latitude, double longitude, Double radiusKm, int limit) {
+		return ids(near(latitude, longitude, radiusKm, limit));
+	}
+
+	private static List<String> ids(List<GeoResult<RestaurantSummary>> results) {
+		return results.stream().map(result -> result.getContent().getId()).collect(Collectors.toList());
+	}
+
+	private static List<RestaurantSummary> grid(double latitude, double longitude, int side, double step) {
+		List<RestaurantSummary> grid = new ArrayList<>();
+		for (int i = 0; i < side; i++) {
+			for (int j = 0; j < side; j++) {
+				grid.add(RestaurantSummary.builder()
+						.id("r-" + i + "-" + j)
+						.location(new GeoJsonPoint(longitude + (j - side / 2) * step, latitude + (i - side / 2) * step))
+						.build());
+			}
+		}
+		return grid;
+	}
+}
@@ -0,0 +1,162 @@
+package com.shivangjaswal.RestaurantReview.Service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RequestCoalescerTest {
+
+	private static final int CALLERS = 200;
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final ViewCache viewCache = new ViewCache(meterRegistry, 1 << 20, 1 << 20, 1000, 60_000);
+	private final RequestCoalescer coalescer = new RequestCoalescer(meterRegistry, viewCache);
+
+	// Reads that arrive while an identical one is in flight all get its result, and only it hits the database
+	@Test
+	void burstOfIdenticalReadsSharesOneQuery() throws Exception {
+		AtomicInteger queries = new AtomicInteger();
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		Object result = new Object();
+		Read read = () -> coalescer.coalesce("test.read", () -> {
+			queries.incrementAndGet();
+			started.countDown();
+			await(release);
+			return result;
+		}, "restaurant-1", null, 20);
+
+		ExecutorService pool = Executors.newSingleThreadExecutor();
+		try {
+			Future<Object> first = pool.submit(read::run);
+			started.await();
+			// The first call is held open until every other caller has joined it
+			Thread releaser = new Thread(() -> {
+				while (joined("test.read") < CALLERS - 1) {
+					Thread.onSpinWait();
+				}
+				release.countDown();
+			});
+			releaser.start();
+
+			List<Object> results = burst(read, CALLERS - 1);
+			releaser.join();
+			assertSame(result, first.get());
+			assertTrue(results.stream().allMatch(joinedResult -> joinedResult == result));
+		} finally {
+			release.countDown();
+			pool.shutdownNow();
+		}
+		assertEquals(1, queries.get());
+		assertEquals(1, (int) meterRegistry.counter("reads.coalescing.calls", "operation", "test.read").count());
+	}
+
+	@Test
+	void differentArgumentsAreNotShared() {
+		Object first = coalescer.coalesce("test.read", Object::new, "a");
+		Object second = coalescer.coalesce("test.read", Object::new, "b");
+		assertTrue(first != second);
+	}
+
+	// A read starting after a write must not get the result of a query that started before it
+	@Test
+	void writeStartsANewFlight() throws Exception {
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		Object before = new Object();
+		Object after = new Object();
+
+		ExecutorService pool = Executors.newSingleThreadExecutor();
+		try {
+			Future<Object> slow = pool.submit(() -> coalescer.coalesce("test.read", () -> {
+				started.countDown();
+				await(release);
+				return before;
+			}, "restaurant-1"));
+			started.await();
+
+			viewCache.invalidateRestaurant("restaurant-1");
+			assertSame(after, coalescer.coalesce("test.read", () -> after, "restaurant-1"));
+
+			release.countDown();
+			assertSame(before, slow.get());
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	@Test
+	void joinersGetTheCallersException() throws Exception {
+		List<Object> results = burst(() -> {
+			try {
+				return coalescer.coalesce("test.fail", () -> {
+					sleep(50);
+					throw new IllegalArgumentException("bad cursor");
+				});
+			} catch (IllegalArgumentException e) {
+				return e.getMessage();
+			}
+		}, CALLERS);
+		assertTrue(results.stream().allMatch("bad cursor"::equals));
+		assertThrows(IllegalArgumentException.class,
+				() -> coalescer.coalesce("test.fail", () -> { throw new IllegalArgumentException(); }));
+	}
+
+	private interface Read {
+		Object run() throws Exception;
+	}
+
+	private int joined(String operation) {
+		return (int) meterRegistry.counter("reads.coalescing.joined", "operation", operation).count();
+	}
+
+	private static List<Object> burst(Read read, int callers) throws Exception {
+		ExecutorService pool = Executors.newFixedThreadPool(callers);
+		CountDownLatch go = new CountDownLatch(1);
+		try {
+			List<Future<Object>> futures = new ArrayList<>();
+			for (int i = 0; i < callers; i++) {
+				futures.add(pool.submit(() -> {
+					go.await();
+					return read.run();
+				}));
+			}
+			go.countDown();
+			List<Object> results = new ArrayList<>();
+			for (Future<Object> future : futures) {
+				results.add(future.get());
+			}
+			return results;
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	private static void sleep(long ms) {
+		try {
+			Thread.sleep(ms);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,131 @@
+package com.shivangjaswal.RestaurantReview.Service;
+
+import com.shivangjaswal.RestaurantReview.Utils.StaleResponses;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ResilientReadsTest {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final ViewCache viewCache = new ViewCache(meterRegistry, 1 << 20, 1 << 20, 1000, 60_000);
+	// 100 ms deadline, breaker opens after 3 failures for 200 ms
+	private final ResilientReads reads = new ResilientReads(new RequestCoalescer(meterRegistry, viewCache),
+			meterRegistry, 100, 8, 60_000, 100, 3, 200);
+
+	@BeforeEach
+	void bindRequest() {
+		RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+	}
+
+	@AfterEach
+	void unbindRequest() {
+		RequestContextHolder.resetRequestAttributes();
+		reads.shutdown();
+	}
+
+	// A hung query is abandoned at the deadline and the last good value is served, marked stale
+	@Test
+	void slowQueryServesLastGoodValueWithinTheDeadline() {
+		assertEquals("fresh", reads.read("test.read", () -> "fresh", "a"));
+		assertFalse(StaleResponses.isMarked());
+
+		// Never answers on its own: only the deadline gets this read back
+		CountDownLatch hung = new CountDownLatch(1);
+		try {
+			assertEquals("fresh", reads.read("test.read", () -> {
+				await(hung);
+				return "late";
+			}, "a"));
+			assertTrue(StaleResponses.isMarked());
+		} finally {
+			hung.countDown();
+		}
+	}
+
+	@Test
+	void failureWithoutLastGoodValueIsUnavailable() {
+		assertThrows(RejectedExecutionException.class, () -> reads.read("test.read", () -> {
+			throw new DataAccessResourceFailureException("down");
+		}, "never-read"));
+	}
+
+	// Not found and the like are answers, not outages: no fallback, no breaker failure
+	@Test
+	void businessErrorsPassThrough() {
+		reads.read("test.read", () -> "fresh", "b");
+		RuntimeException e = assertThrows(RuntimeException.class, () -> reads.read("test.read", () -> {
+			throw new RuntimeException("Restaurant not found");
+		}, "b"));
+		assertEquals("Restaurant not found", e.getMessage());
+		assertFalse(StaleResponses.isMarked());
+	}
+
+	// After consecutive failures nothing reaches the database until the cool-down is over
+	@Test
+	void breakerOpensAndRecovers() throws Exception {
+		reads.read("test.read", () -> "fresh", "c");
+		AtomicInteger queries = new AtomicInteger();
+		for (int i = 0; i < 10; i++) {
+			assertEquals("fresh", reads.read("test.read", () -> {
+				queries.incrementAndGet();
+				throw new DataAccessResourceFailureException("down");
+			}, "c"));
+		}
+		assertEquals(3, queries.get());
+
+		Thread.sleep(250);
+		assertEquals("recovered", reads.read("test.read", () -> "recovered", "c"));
+		assertEquals("again", reads.read("test.read", () -> "again", "c"));
+	}
+
+	// A trial the full pool turns away must not leave the breaker half-open with nobody left to close it
+	@Test
+	void rejectedTrialDoesNotWedgeTheBreaker() throws Exception {
+		// One read thread and a queue of four: five hung reads fill it and open the breaker
+		ResilientReads small = new ResilientReads(new RequestCoalescer(meterRegistry, viewCache),
+				meterRegistry, 50, 1, 60_000, 100, 5, 200);
+		CountDownLatch hung = new CountDownLatch(1);
+		try {
+			small.read("test.read", () -> "fresh", "d");
+			for (int i = 0; i < 5; i++) {
+				assertEquals("fresh", small.read("test.read", () -> {
+					await(hung);
+					return "late";
+				}, "d"));
+			}
+
+			Thread.sleep(250);
+			assertEquals("fresh", small.read("test.read", () -> "trial", "d"));
+
+			hung.countDown();
+			Thread.sleep(250);
+			assertEquals("recovered", small.read("test.read", () -> "recovered", "d"));
+		} finally {
+			hung.countDown();
+			small.shutdown();
+		}
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
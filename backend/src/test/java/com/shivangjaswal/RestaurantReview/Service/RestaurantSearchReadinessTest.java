@@ -0,0 +1,117 @@
+package com.shivangjaswal.RestaurantReview.Service;
+
+import com.shivangjaswal.RestaurantReview.Dto.PageResponseDTO;
+import com.shivangjaswal.RestaurantReview.Dto.RestaurantDTO;
+import com.shivangjaswal.RestaurantReview.Entity.RestaurantSummary;
+import com.shivangjaswal.RestaurantReview.Respository.LocalWrites;
+import com.shivangjaswal.RestaurantReview.Respository.RestaurantRepository;
+import com.shivangjaswal.RestaurantReview.Utils.SearchCursor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Search while the in-memory index is still being built on startup, and across the moment it is ready.
+ */
+class RestaurantSearchReadinessTest {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final ViewCache viewCache = new ViewCache(meterRegistry, 1 << 20, 1 << 20, 1000, 60_000);
+	private final List<RestaurantSummary> restaurants = IntStream.range(0, 5)
+			.mapToObj(i -> RestaurantSummary.builder().id("r" + i).name("Pizza " + i).cuisineType("Italian")
+					.city("Rome").averageRating(4.0).totalReviews(1).build())
+			.collect(Collectors.toList());
+	// Which repository query answered each page
+	private final List<String> queries = new ArrayList<>();
+
+	// A search begun on the database keeps its cursor format once the index is ready
+	@Test
+	void databaseSearchKeepsPagingOnTheDatabase() {
+		RestaurantSearchService searchService = new RestaurantSearchService(repository());
+		RestaurantService restaurantService = restaurantService(searchService);
+
+		PageResponseDTO<RestaurantDTO> first = restaurantService.searchRestaurants("pizza", false, null, 2);
+		searchService.buildIndexes();
+		restaurantService.searchRestaurants("pizza", false, first.getNextCursor(), 2);
+		assertEquals(List.of("findPage", "findPage"), queries);
+
+		PageResponseDTO<RestaurantDTO> indexed = restaurantService.searchRestaurants("pizza", false, null, 2);
+		assertTrue(SearchCursor.isSearchCursor(indexed.getNextCursor()));
+		assertFalse(SearchCursor.isSearchCursor(first.getNextCursor()));
+	}
+
+	// Behind a load balancer the next page can land on a node still building its index
+	@Test
+	void indexCursorIsRefusedWhereTheIndexIsNotReady() {
+		RestaurantSearchService ready = new RestaurantSearchService(repository());
+		ready.buildIndexes();
+		String cursor = restaurantService(ready).searchRestaurants("pizza", false, null, 2).getNextCursor();
+
+		RestaurantService starting = restaurantService(new RestaurantSearchService(repository()));
+		assertThrows(IllegalArgumentException.class, () -> starting.searchRestaurants("pizza", false, cursor, 2));
+	}
+
+	// Counts and suggestions from half the restaurants would look right and be wrong
+	@Test
+	void facetsAndSuggestionsWaitForTheIndex() {
+		RestaurantSearchService searchService = new RestaurantSearchService(repository());
+		RestaurantService restaurantService = restaurantService(searchService);
+
+		assertThrows(RejectedExecutionException.class, () -> restaurantService.getFacets("pizza", false, null, null));
+		assertThrows(RejectedExecutionException.class, () -> restaurantService.suggest("piz", 5));
+
+		searchService.buildIndexes();
+		assertEquals(5, restaurantService.getFacets("pizza", false, null, null).getTotal());
+		assertEquals(3, restaurantService.suggest("piz", 5).size());
+	}
+
+	// A huge limit must not walk and return the whole trie
+	@Test
+	void suggestionLimitIsCapped() {
+		RestaurantSearchService searchService = new RestaurantSearchService(repository());
+		searchService.buildIndexes();
+
+		assertEquals(3, restaurantService(searchService).suggest("piz", 1_000_000).size());
+		assertEquals(2, restaurantService(searchService).suggest("piz", 2).size());
+	}
+
+	private RestaurantService restaurantService(RestaurantSearchService searchService) {
+		RestaurantService restaurantService = new RestaurantService(repository(), null, searchService, null, null, viewCache, null,
+				new ResilientReads(new RequestCoalescer(meterRegistry, viewCache), meterRegistry, 1000, 8, 60_000, 100, 5, 1000),
+				new LocalWrites(60_000, 100));
+		ReflectionTestUtils.setField(restaurantService, "defaultPageSize", 20);
+		ReflectionTestUtils.setField(restaurantService, "maxPageSize", 100);
+		ReflectionTestUtils.setField(restaurantService, "maxSuggestions", 3);
+		return restaurantService;
+	}
+
+	@SuppressWarnings("unchecked")
+	private RestaurantRepository repository() {
+		return (RestaurantRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+				new Class<?>[]{RestaurantRepository.class}, (proxy, method, args) -> switch (method.getName()) {
+					case "findPage" -> {
+						queries.add("findPage");
+						yield restaurants.subList(0, (int) args[3]);
+					}
+					case "findSummariesByIds" -> {
+						queries.add("findSummariesByIds");
+						yield restaurants.stream().filter(((Collection<String>) args[0])::contains).collect(Collectors.toList());
+					}
+					case "streamAllSummaries" -> restaurants.stream();
+					default -> throw new UnsupportedOperationException(method.getName());
+				});
+	}
+}
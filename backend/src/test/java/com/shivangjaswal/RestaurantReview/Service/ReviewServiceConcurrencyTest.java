@@ -0,0 +1,120 @@
+package com.shivangjaswal.RestaurantReview.Service;
+
+import com.shivangjaswal.RestaurantReview.Dto.CreateReviewDTO;
+import com.shivangjaswal.RestaurantReview.Entity.Restaurant;
+import com.shivangjaswal.RestaurantReview.MongoTestSupport;
+import com.shivangjaswal.RestaurantReview.Respository.RestaurantRepository;
+import com.shivangjaswal.RestaurantReview.Respository.ReviewRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIf;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@EnabledIf("com.shivangjaswal.RestaurantReview.MongoTestSupport#available")
+@SpringBootTest(properties = MongoTestSupport.TEST_DATABASE)
+class ReviewServiceConcurrencyTest {
+
+	private static final int WRITERS = 32;
+
+	@Autowired
+	private ReviewService reviewService;
+
+	@Autowired
+	private RestaurantRepository restaurantRepository;
+
+	@Autowired
+	private ReviewRepository reviewRepository;
+
+	private String restaurantId;
+
+	@BeforeEach
+	void createRestaurant() {
+		restaurantId = restaurantRepository.save(Restaurant.builder()
+				.name("Concurrency Test Kitchen")
+				.cuisineType("Test")
+				.averageRating(0.0)
+				.totalReviews(0)
+				.build()).getId();
+	}
+
+	@AfterEach
+	void deleteRestaurant() {
+		reviewRepository.deleteByRestaurantId(restaurantId);
+		restaurantRepository.deleteById(restaurantId);
+	}
+
+	@Test
+	void parallelReviewsFromDifferentUsersAreAllKept() throws Exception {
+		int failures = runConcurrently(writer -> "user" + writer + "@example.com");
+
+		assertEquals(0, failures);
+		assertEquals(WRITERS, reviewService.getReviewsByRestaurant(restaurantId, null, WRITERS * 2).getSize());
+
+		// Every $inc landed: the running aggregates match the reviews that were written
+		Restaurant restaurant = restaurantRepository.findById(restaurantId).orElseThrow();
+		long expectedSum = 0;
+		for (int writer = 0; writer < WRITERS; writer++) {
+			expectedSum += writer % 5 + 1;
+		}
+		assertEquals(WRITERS, restaurant.getTotalReviews());
+		assertEquals(expectedSum, restaurant.getRatingSum());
+		assertEquals(Math.round(expectedSum * 100.0 / WRITERS) / 100.0, restaurant.getAverageRating());
+		assertEquals(WRITERS / 5 + (WRITERS % 5 > 0 ? 1 : 0), restaurant.getRatingHistogram().get("1"));
+	}
+
+	@Test
+	void parallelReviewsFromTheSameUserKeepExactlyOne() throws Exception {
+		int failures = runConcurrently(writer -> "same@example.com");
+
+		assertEquals(WRITERS - 1, failures);
+		assertEquals(1, reviewService.getReviewsByRestaurant(restaurantId, null, WRITERS * 2).getSize());
+		assertEquals(1, restaurantRepository.findById(restaurantId).orElseThrow().getTotalReviews());
+	}
+
+	// Start every writer at once and count the rejected ones
+	private int runConcurrently(IntFunction<String> emailOf) throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(WRITERS);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<Boolean>> results = new ArrayList<>();
+		for (int writer = 0; writer < WRITERS; writer++) {
+			CreateReviewDTO review = CreateReviewDTO.builder()
+					.username("writer" + writer)
+					.userEmail(emailOf.apply(writer))
+					.content("Review " + writer)
+					.rating(writer % 5 + 1)
+					.build();
+			results.add(executor.submit(() -> {
+				start.await();
+				try {
+					reviewService.createReview(restaurantId, review);
+					return true;
+				} catch (RuntimeException e) {
+					return false;
+				}
+			}));
+		}
+		start.countDown();
+
+		int failures = 0;
+		for (Future<Boolean> result : results) {
+			if (!result.get(30, TimeUnit.SECONDS)) {
+				failures++;
+			}
+		}
+		executor.shutdown();
+		return failures;
+	}
+}
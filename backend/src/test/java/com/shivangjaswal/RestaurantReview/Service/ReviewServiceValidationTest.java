@@ -0,0 +1,58 @@
+package com.shivangjaswal.RestaurantReview.Service;
+
+import com.shivangjaswal.RestaurantReview.Dto.CreateReviewDTO;
+import com.shivangjaswal.RestaurantReview.Dto.UpdateReviewDTO;
+import com.shivangjaswal.RestaurantReview.Respository.RestaurantRepository;
+import com.shivangjaswal.RestaurantReview.Respository.ReviewRepository;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReviewServiceValidationTest {
+
+	// Every repository call, none of which should happen for a rejected review
+	private final List<String> calls = new ArrayList<>();
+
+	private final ReviewService reviewService = new ReviewService(repository(RestaurantRepository.class),
+			repository(ReviewRepository.class), null, null, Optional.empty(), null, null, null, null);
+
+	@Test
+	void createRejectsMissingAndOutOfRangeRatingsBeforeWriting() {
+		assertEquals("Rating is required", rejectCreate(null));
+		assertEquals("Rating must be at least 1", rejectCreate(0));
+		assertEquals("Rating cannot exceed 5", rejectCreate(7));
+		assertTrue(calls.isEmpty());
+	}
+
+	// A rating of 0 used to read as "rating removed" to the aggregates
+	@Test
+	void updateRejectsOutOfRangeRatingsBeforeWriting() {
+		for (int rating : new int[]{0, -3, 6}) {
+			assertThrows(IllegalArgumentException.class, () -> reviewService.updateReview("restaurant", "review",
+					new UpdateReviewDTO("Edited", rating, null), "ann@example.com"));
+		}
+		assertTrue(calls.isEmpty());
+	}
+
+	private String rejectCreate(Integer rating) {
+		CreateReviewDTO review = CreateReviewDTO.builder()
+				.username("Ann").userEmail("ann@example.com").content("Great").rating(rating).build();
+		return assertThrows(IllegalArgumentException.class, () -> reviewService.createReview("restaurant", review))
+				.getMessage();
+	}
+
+	private <T> T repository(Class<T> type) {
+		return type.cast(Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{type},
+				(proxy, method, args) -> {
+					calls.add(method.getName());
+					throw new UnsupportedOperationException(method.getName());
+				}));
+	}
+}
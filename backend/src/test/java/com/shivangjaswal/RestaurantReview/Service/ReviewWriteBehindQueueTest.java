@@ -0,0 +1,71 @@
+package com.shivangjaswal.RestaurantReview.Service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shivangjaswal.RestaurantReview.Entity.RestaurantSummary;
+import com.shivangjaswal.RestaurantReview.Entity.Review;
+import com.shivangjaswal.RestaurantReview.Respository.RestaurantRepository;
+import com.shivangjaswal.RestaurantReview.Respository.ReviewRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.TransientDataAccessException;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReviewWriteBehindQueueTest {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final CountDownLatch recounted = new CountDownLatch(1);
+	private final RestaurantRepository restaurantRepository = restaurantRepository();
+	private final ReviewWriteBehindQueue queue = new ReviewWriteBehindQueue(reviewRepository(), restaurantRepository,
+			new LeaderboardService(restaurantRepository, meterRegistry, 100, 100), new NearbySearchCache(restaurantRepository),
+			new ReviewEventHub(new ObjectMapper(), meterRegistry, 60_000, 10, 60_000, 1, 8),
+			new ViewCache(meterRegistry, 1 << 20, 1 << 20, 1000, 60_000),
+			meterRegistry, 100, 10, 5, 100, 5000);
+
+	@AfterEach
+	void stop() throws InterruptedException {
+		queue.shutdown();
+	}
+
+	// The bulk write broke off part way, so the review may be stored: retry, and recount the restaurant
+	@Test
+	void interruptedBatchIsRetryableAndRecounted() throws InterruptedException {
+		Review review = Review.builder().id("review").restaurantId("restaurant")
+				.userEmail("ann@example.com").content("Great").rating(5).build();
+
+		assertThrows(TransientDataAccessException.class, () -> queue.write(review));
+		assertTrue(recounted.await(5, TimeUnit.SECONDS), "The restaurant's aggregates were not recounted");
+	}
+
+	private ReviewRepository reviewRepository() {
+		return (ReviewRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+				new Class<?>[]{ReviewRepository.class}, (proxy, method, args) -> switch (method.getName()) {
+					case "insertAllIfNotReviewed" -> throw new IllegalStateException("Socket read timed out");
+					case "ratingCounts" -> Map.of(5, 1);
+					default -> throw new UnsupportedOperationException(method.getName());
+				});
+	}
+
+	private RestaurantRepository restaurantRepository() {
+		return (RestaurantRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+				new Class<?>[]{RestaurantRepository.class}, (proxy, method, args) -> switch (method.getName()) {
+					case "findVersion" -> Optional.of(3L);
+					case "resetRatingAggregates" -> {
+						recounted.countDown();
+						yield Optional.of(RestaurantSummary.builder().id((String) args[0])
+								.averageRating(5.0).totalReviews(1).version(4L).build());
+					}
+					case "findTopRated" -> List.of();
+					default -> throw new UnsupportedOperationException(method.getName());
+				});
+	}
+}
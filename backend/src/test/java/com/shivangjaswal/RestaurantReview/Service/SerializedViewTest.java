@@ -0,0 +1,120 @@
+package com.shivangjaswal.RestaurantReview.Service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shivangjaswal.RestaurantReview.Dto.PageResponseDTO;
+import com.shivangjaswal.RestaurantReview.Dto.ReviewDTO;
+import com.shivangjaswal.RestaurantReview.Utils.ETags;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class SerializedViewTest {
+
+	private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+	@Test
+	void gzipCopyDecompressesToTheJson() throws IOException {
+		SerializedView view = SerializedView.of(objectMapper, reviewPage(), 7);
+
+		try (GZIPInputStream unzipped = new GZIPInputStream(new ByteArrayInputStream(view.getGzip()))) {
+			assertArrayEquals(view.getJson(), unzipped.readAllBytes());
+		}
+		assertEquals(7, view.getVersion());
+	}
+
+	@Test
+	void gzipIsOnlyServedToClientsThatAcceptIt() {
+		SerializedView view = SerializedView.of(objectMapper, reviewPage(), 1);
+
+		ResponseEntity<byte[]> zipped = view.toResponse("\"a-1\"", "br, gzip;q=0.8");
+		assertEquals("gzip", zipped.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+		assertArrayEquals(view.getGzip(), zipped.getBody());
+		// Different bytes, different strong ETag
+		assertEquals("\"a-1-gz\"", zipped.getHeaders().getETag());
+		assertEquals(HttpHeaders.ACCEPT_ENCODING, zipped.getHeaders().getFirst(HttpHeaders.VARY));
+
+		ResponseEntity<byte[]> refused = view.toResponse("\"a-1\"", "gzip;q=0, identity");
+		assertNull(refused.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+		assertArrayEquals(view.getJson(), refused.getBody());
+		assertEquals("\"a-1\"", refused.getHeaders().getETag());
+	}
+
+	// A revalidation is answered with the ETag of the encoding the client holds
+	@Test
+	void eachEncodingRevalidatesAgainstItsOwnETag() {
+		assertEquals("\"a-1-gz\"", ETags.matchingEncoded("\"a-1-gz\"", "\"a-1\""));
+		assertEquals("\"a-1\"", ETags.matchingEncoded("W/\"a-1\"", "\"a-1\""));
+		assertNull(ETags.matchingEncoded("\"a-0-gz\"", "\"a-1\""));
+		// Plain resources have no gzip form
+		assertFalse(ETags.matches("\"a-1-gz\"", "\"a-1\""));
+
+		ResponseEntity<byte[]> notModified = SerializedView.notModified("\"a-1-gz\"");
+		assertEquals(HttpStatus.NOT_MODIFIED, notModified.getStatusCode());
+		assertEquals("\"a-1-gz\"", notModified.getHeaders().getETag());
+		assertEquals(HttpHeaders.ACCEPT_ENCODING, notModified.getHeaders().getFirst(HttpHeaders.VARY));
+	}
+
+	@Test
+	void smallBodiesAreNotCompressed() {
+		assertNull(SerializedView.of(objectMapper, List.of(1, 2, 3), 1).getGzip());
+	}
+
+	// Repeat requests are answered from the bytes serialized on the first one, not re-serialized
+	@Test
+	void repeatRequestsReuseTheCachedBytes() {
+		ViewCache viewCache = new ViewCache(new SimpleMeterRegistry(), 1 << 20, 1 << 20, 100, 60_000);
+		AtomicInteger serializations = new AtomicInteger();
+		Supplier<SerializedView> loader = () -> {
+			serializations.incrementAndGet();
+			return SerializedView.of(objectMapper, reviewPage(), 1);
+		};
+
+		byte[] first = viewCache.firstReviewPage("restaurant-1", loader).toResponse("\"a-1\"", null).getBody();
+		for (int i = 0; i < 100; i++) {
+			assertSame(first, viewCache.firstReviewPage("restaurant-1", loader).toResponse("\"a-1\"", null).getBody());
+		}
+		assertEquals(1, serializations.get());
+	}
+
+	private static PageResponseDTO<ReviewDTO> reviewPage() {
+		List<ReviewDTO> reviews = new ArrayList<>();
+		for (int i = 0; i < 20; i++) {
+			reviews.add(ReviewDTO.builder()
+					.id("review-" + i)
+					.restaurantId("restaurant-1")
+					.username("Reviewer " + i)
+					.userEmail("reviewer" + i + "@example.com")
+					.content("Great food and friendly staff, the pasta was fresh and the portions generous. ".repeat(3))
+					.rating(i % 5 + 1)
+					.photoUrls(List.of("/api/uploads/photo-" + i + ".jpg"))
+					.createdAt(LocalDateTime.of(2024, 1, 1, 12, 0).plusHours(i))
+					.lastEditedAt(LocalDateTime.of(2024, 1, 1, 12, 0).plusHours(i))
+					.editableUntil(Instant.parse("2024-01-03T12:00:00Z").plusSeconds(3600L * i))
+					.build());
+		}
+		return PageResponseDTO.<ReviewDTO>builder()
+				.content(reviews)
+				.size(reviews.size())
+				.hasNext(true)
+				.nextCursor("cursor")
+				.build();
+	}
+}
@@ -0,0 +1,56 @@
+package com.shivangjaswal.RestaurantReview.Utils;
+
+import com.shivangjaswal.RestaurantReview.Dto.CreateRestaurantDTO;
+import com.shivangjaswal.RestaurantReview.Dto.CreateReviewDTO;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DtoConstraintsTest {
+
+	@Test
+	void validDtoHasNoViolations() {
+		assertTrue(DtoConstraints.violations(restaurant(48.85, 2.35)).isEmpty());
+		assertTrue(DtoConstraints.violations(review("Lovely", 5)).isEmpty());
+	}
+
+	@Test
+	void blankAndMissingFieldsUseTheirMessages() {
+		CreateRestaurantDTO restaurant = restaurant(null, null);
+		restaurant.setName("  ");
+		restaurant.setCity(null);
+		assertEquals(List.of("Restaurant name is required", "City is required"), DtoConstraints.violations(restaurant));
+
+		assertEquals(List.of("Review content is required", "Rating is required"),
+				DtoConstraints.violations(review("", null)));
+	}
+
+	@Test
+	void numericBoundsAreInclusive() {
+		assertTrue(DtoConstraints.violations(restaurant(-90.0, 180.0)).isEmpty());
+		assertEquals(List.of("Latitude must be between -90 and 90", "Longitude must be between -180 and 180"),
+				DtoConstraints.violations(restaurant(90.0001, -180.5)));
+
+		assertTrue(DtoConstraints.violations(review("Ok", 1)).isEmpty());
+		assertEquals(List.of("Rating must be at least 1"), DtoConstraints.violations(review("Bad", 0)));
+		assertEquals(List.of("Rating cannot exceed 5"), DtoConstraints.violations(review("Too good", 6)));
+	}
+
+	private static CreateRestaurantDTO restaurant(Double latitude, Double longitude) {
+		CreateRestaurantDTO restaurant = new CreateRestaurantDTO();
+		restaurant.setName("Chez Test");
+		restaurant.setCuisineType("French");
+		restaurant.setAddress("1 Rue de Test");
+		restaurant.setCity("Paris");
+		restaurant.setLatitude(latitude);
+		restaurant.setLongitude(longitude);
+		return restaurant;
+	}
+
+	private static CreateReviewDTO review(String content, Integer rating) {
+		return CreateReviewDTO.builder().content(content).rating(rating).build();
+	}
+}
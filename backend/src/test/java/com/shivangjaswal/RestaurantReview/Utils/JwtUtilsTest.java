@@ -0,0 +1,185 @@
+package com.shivangjaswal.RestaurantReview.Utils;
+
+import com.shivangjaswal.RestaurantReview.Entity.User;
+import com.shivangjaswal.RestaurantReview.Respository.UserRepository;
+import com.shivangjaswal.RestaurantReview.Security.JwtAuthenticationFilter;
+import com.shivangjaswal.RestaurantReview.Security.UserPrincipal;
+import com.shivangjaswal.RestaurantReview.Service.AuthService;
+import com.shivangjaswal.RestaurantReview.Service.CacheInvalidationBus;
+import com.shivangjaswal.RestaurantReview.Service.CustomUserDetailsService;
+import com.shivangjaswal.RestaurantReview.Service.UserStatusCache;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.lang.reflect.Proxy;
+import java.util.Date;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class JwtUtilsTest {
+
+	private static final String SECRET = "VW9I1Z7tOI5wBFiAwmVi5GnMgtrxnN+VNDe76swUPGg=";
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final JwtUtils jwtUtils = new JwtUtils(meterRegistry, SECRET, 60_000, 1000, 300_000);
+	private UserRepository users;
+	private UserStatusCache statusCache;
+
+	@AfterEach
+	void clearContext() {
+		SecurityContextHolder.clearContext();
+	}
+
+	@Test
+	void verifiedTokenGivesItsSubject() {
+		String token = jwtUtils.generateTokenFromUsername("alice");
+		assertEquals("alice", jwtUtils.getVerifiedUsername(token));
+		// Second time from the cache
+		assertEquals("alice", jwtUtils.getVerifiedUsername(token));
+	}
+
+	@Test
+	void tamperedTokenIsRejected() {
+		String token = jwtUtils.generateTokenFromUsername("alice");
+		String forged = Jwts.builder().setSubject("mallory").setExpiration(new Date(System.currentTimeMillis() + 60_000))
+				.signWith(Keys.hmacShaKeyFor(new byte[32]), SignatureAlgorithm.HS256).compact();
+		assertNull(jwtUtils.getVerifiedUsername(forged));
+		assertNull(jwtUtils.getVerifiedUsername(token.substring(0, token.length() - 2) + "xx"));
+		assertNull(jwtUtils.getVerifiedUsername("not-a-token"));
+	}
+
+	// A cached token stops working when it expires, not when the cache gets round to it
+	@Test
+	void cachedTokenExpiresWithTheToken() throws InterruptedException {
+		// exp is in whole seconds, so a 2 s token is valid for at least one
+		JwtUtils shortLived = new JwtUtils(new SimpleMeterRegistry(), SECRET, 2_000, 1000, 300_000);
+		String token = shortLived.generateTokenFromUsername("alice");
+		assertEquals("alice", shortLived.getVerifiedUsername(token));
+
+		Thread.sleep(2_100);
+		assertNull(shortLived.getVerifiedUsername(token));
+	}
+
+	// A token carries the user; a disabled user or an older token version is turned away without a lookup per request
+	@Test
+	void filterAuthenticatesFromClaimsAndHonorsRevocation() throws Exception {
+		User alice = alice();
+		AtomicInteger lookups = new AtomicInteger();
+		JwtAuthenticationFilter filter = filter(alice, lookups);
+		String token = jwtUtils.generateTokenForUser(alice);
+
+		for (int i = 0; i < 3; i++) {
+			UserPrincipal principal = authenticate(filter, token);
+			assertEquals("alice@example.com", principal.getEmail());
+			assertEquals("Alice Smith", principal.getFullName());
+			assertEquals("user-1", principal.getId());
+		}
+		assertEquals(1, lookups.get());
+
+		alice.setTokenVersion(1);
+		statusCache.invalidate("user-1");
+		assertNull(authenticate(filter, token));
+		assertEquals("user-1", authenticate(filter, jwtUtils.generateTokenForUser(alice)).getId());
+
+		alice.setEnabled(false);
+		statusCache.invalidate("user-1");
+		assertNull(authenticate(filter, jwtUtils.generateTokenForUser(alice)));
+	}
+
+	// A demoted admin's token still says ADMIN; the status check turns it away
+	@Test
+	void filterRejectsATokenWithAStaleRole() throws Exception {
+		User alice = alice();
+		alice.setRole("ADMIN");
+		JwtAuthenticationFilter filter = filter(alice, new AtomicInteger());
+		String adminToken = jwtUtils.generateTokenForUser(alice);
+		assertEquals("ADMIN", authenticate(filter, adminToken).getRole());
+
+		alice.setRole("USER");
+		statusCache.invalidate("user-1");
+		assertNull(authenticate(filter, adminToken));
+		assertEquals("USER", authenticate(filter, jwtUtils.generateTokenForUser(alice)).getRole());
+	}
+
+	// Log out everywhere: tokens issued before the revoke are turned away at once, a new login works
+	@Test
+	void revokedTokensAreTurnedAway() throws Exception {
+		User alice = alice();
+		JwtAuthenticationFilter filter = filter(alice, new AtomicInteger());
+		AuthService authService = new AuthService(users, null, null, jwtUtils, statusCache);
+		String token = jwtUtils.generateTokenForUser(alice);
+		assertEquals("user-1", authenticate(filter, token).getId());
+
+		authService.revokeTokens("user-1");
+		assertNull(authenticate(filter, token));
+		assertEquals("user-1", authenticate(filter, jwtUtils.generateTokenForUser(alice)).getId());
+		assertThrows(RuntimeException.class, () -> authService.revokeTokens("user-2"));
+	}
+
+	// A repeated token is verified once: the filter gets the same claims back from the cache every time after
+	@Test
+	void filterVerifiesARepeatedTokenOnce() throws Exception {
+		User alice = alice();
+		AtomicInteger lookups = new AtomicInteger();
+		JwtAuthenticationFilter filter = filter(alice, lookups);
+		String token = jwtUtils.generateTokenForUser(alice);
+
+		for (int i = 0; i < 100; i++) {
+			assertEquals("user-1", authenticate(filter, token).getId());
+		}
+		assertSame(jwtUtils.getVerifiedClaims(token), jwtUtils.getVerifiedClaims(token));
+		assertEquals(1, (int) meterRegistry.get("cache.gets").tags("cache", "jwtClaims", "result", "miss").functionCounter().count());
+		assertEquals(1, lookups.get());
+	}
+
+	// The filter over a users collection holding only alice, counting status lookups; revokes bump her token version
+	private JwtAuthenticationFilter filter(User alice, AtomicInteger lookups) {
+		users = (UserRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+				new Class<?>[]{UserRepository.class}, (proxy, method, args) -> {
+					if (method.getName().equals("findStatusById")) {
+						lookups.incrementAndGet();
+						return Optional.of(alice).filter(user -> user.getId().equals(args[0]));
+					}
+					if (method.getName().equals("incrementTokenVersionById")) {
+						if (!alice.getId().equals(args[0])) {
+							return 0L;
+						}
+						alice.setTokenVersion(alice.getTokenVersion() + 1);
+						return 1L;
+					}
+					throw new UnsupportedOperationException(method.getName());
+				});
+		SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+		CacheInvalidationBus bus = new CacheInvalidationBus(null, null, null, null, null, null, null, meterRegistry, "local", 1000);
+		statusCache = new UserStatusCache(users, bus, meterRegistry, 1000, 60_000);
+		return new JwtAuthenticationFilter(jwtUtils, new CustomUserDetailsService(users), statusCache);
+	}
+
+	private static UserPrincipal authenticate(JwtAuthenticationFilter filter, String token) throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/users/me/reviews");
+		request.addHeader("Authorization", "Bearer " + token);
+		filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+		Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+		SecurityContextHolder.clearContext();
+		return authentication != null ? (UserPrincipal) authentication.getPrincipal() : null;
+	}
+
+	private static User alice() {
+		return User.builder().id("user-1").username("alice").email("alice@example.com")
+				.firstName("Alice").lastName("Smith").build();
+	}
+}
@@ -1,6 +1,6 @@
 import React, { useState, useEffect } from "react";
 import { useParams, Link } from "react-router-dom";
-import { restaurantAPI } from "../services/api";
+import { restaurantAPI, subscribeToRestaurantEvents } from "../services/api";
 import ReviewForm from "./ReviewForm";
 import StarRating from "./StarRAting";
 import ReviewList from "./ReviewList";
@@ -13,11 +13,28 @@ const RestaurantDetail = () => {
   const [loading, setLoading] = useState(true);
   const [error, setError] = useState("");
   const [showReviewForm, setShowReviewForm] = useState(false);
+  const [liveReviewEvent, setLiveReviewEvent] = useState(null);
 
   useEffect(() => {
     fetchRestaurant(); // eslint-disable-next-line
   }, [id]);
 
+  // Pushed updates from other users: rating changes patch the header, review events go to the list
+  useEffect(() => {
+    const events = subscribeToRestaurantEvents(id);
+    const onRatingChanged = (e) => {
+      const { averageRating, totalReviews, ratingHistogram } = JSON.parse(e.data);
+      setRestaurant((prev) => prev && { ...prev, averageRating, totalReviews, ratingHistogram });
+    };
+    const onReviewEvent = (e) => setLiveReviewEvent(JSON.parse(e.data));
+
+    events.addEventListener("rating-changed", onRatingChanged);
+    ["review-created", "review-updated", "review-deleted"].forEach((name) =>
+      events.addEventListener(name, onReviewEvent)
+    );
+    return () => events.close();
+  }, [id]);
+
   const fetchRestaurant = async () => {
     try {
       setLoading(true);
@@ -35,6 +52,8 @@ const RestaurantDetail = () => {
     }
   };
 
+  // Other viewers get the new review through the event stream; the author refetches, which also covers a
+  // stream that is down and brings back the review with its owner fields (events leave out the email)
   const handleReviewSubmitted = () => {
     fetchRestaurant();
     setShowReviewForm(false);
@@ -248,7 +267,29 @@ const RestaurantDetail = () => {
           <h2 className="text-2xl font-bold text-gray-900 mb-6">
             Customer Reviews ({restaurant.totalReviews})
           </h2>
-          <ReviewList restaurantId={id} />
+
+          {/* Star breakdown */}
+          {restaurant.ratingHistogram && restaurant.totalReviews > 0 && (
+            <div className="mb-8 max-w-md space-y-2">
+              {[5, 4, 3, 2, 1].map((stars) => {
+                const count = restaurant.ratingHistogram[stars] || 0;
+                return (
+                  <div key={stars} className="flex items-center space-x-3 text-sm">
+                    <span className="w-12 text-gray-600">{stars} star</span>
+                    <div className="flex-1 h-2 bg-gray-200 rounded-full overflow-hidden">
+                      <div
+                        className="h-full bg-yellow-400"
+                        style={{ width: `${(count / restaurant.totalReviews) * 100}%` }}
+                      />
+                    </div>
+                    <span className="w-8 text-right text-gray-500">{count}</span>
+                  </div>
+                );
+              })}
+            </div>
+          )}
+
+          <ReviewList restaurantId={id} liveEvent={liveReviewEvent} />
         </div>
       </div>
     </div>
@@ -11,6 +11,11 @@ const RestaurantList = () => {
   const [error, setError] = useState("");
   const [searchTerm, setSearchTerm] = useState("");
   const [selectedCuisine, setSelectedCuisine] = useState("");
+  const [nextCursor, setNextCursor] = useState(null);
+  const [loadingMore, setLoadingMore] = useState(false);
+  const [lastQuery, setLastQuery] = useState({ type: "all" });
+  const [suggestions, setSuggestions] = useState([]);
+  const [cuisineCounts, setCuisineCounts] = useState({});
 
   const cuisineTypes = [
     "Italian",
@@ -29,14 +34,70 @@ const RestaurantList = () => {
 
   useEffect(() => {
     fetchRestaurants();
+    fetchFacets();
   }, []);
 
+  // Cuisine counts for the filter dropdown, keyed case-insensitively
+  const fetchFacets = async (query) => {
+    try {
+      const response = await restaurantAPI.getFacets(query);
+      const counts = {};
+      Object.entries(response.data.cuisines).forEach(([cuisine, count]) => {
+        counts[cuisine.toLowerCase()] = count;
+      });
+      setCuisineCounts(counts);
+    } catch (error) {
+      console.error("Error fetching facet counts:", error);
+    }
+  };
+
+  // Fetch one page for the current listing (all, search or cuisine filter)
+  const fetchPage = (query, cursor) => {
+    if (query.type === "search") return restaurantAPI.searchRestaurants(query.value, cursor, query.fuzzy);
+    if (query.type === "cuisine") return restaurantAPI.getRestaurantsByCuisine(query.value, cursor);
+    return restaurantAPI.getAllRestaurants(cursor);
+  };
+
+  const showFirstPage = (query, page) => {
+    setLastQuery(query);
+    setRestaurants(page.content);
+    setNextCursor(page.nextCursor);
+  };
+
+  const handleSearchInput = async (value) => {
+    setSearchTerm(value);
+    if (!value.trim()) {
+      setSuggestions([]);
+      return;
+    }
+    try {
+      const response = await restaurantAPI.suggest(value);
+      setSuggestions(response.data);
+    } catch (error) {
+      setSuggestions([]);
+    }
+  };
+
+  const handleLoadMore = async () => {
+    try {
+      setLoadingMore(true);
+      const response = await fetchPage(lastQuery, nextCursor);
+      setRestaurants((current) => [...current, ...response.data.content]);
+      setNextCursor(response.data.nextCursor);
+    } catch (error) {
+      console.error("Error loading more restaurants:", error);
+      setError("Failed to load more restaurants. Please try again.");
+    } finally {
+      setLoadingMore(false);
+    }
+  };
+
   const fetchRestaurants = async () => {
     try {
       setLoading(true);
       setError("");
       const response = await restaurantAPI.getAllRestaurants();
-      setRestaurants(response.data);
+      showFirstPage({ type: "all" }, response.data);
     } catch (error) {
       console.error("Error fetching restaurants:", error);
       setError("Failed to load restaurants. Please try again.");
@@ -49,14 +110,22 @@ const RestaurantList = () => {
     e.preventDefault();
     if (!searchTerm.trim()) {
       fetchRestaurants();
+      fetchFacets();
       return;
     }
+    fetchFacets(searchTerm);
 
     try {
       setLoading(true);
       setError("");
-      const response = await restaurantAPI.searchRestaurants(searchTerm);
-      setRestaurants(response.data);
+      let response = await restaurantAPI.searchRestaurants(searchTerm);
+      let fuzzy = false;
+      // Nothing matched as typed, try again allowing for typos
+      if (response.data.content.length === 0) {
+        response = await restaurantAPI.searchRestaurants(searchTerm, null, true);
+        fuzzy = true;
+      }
+      showFirstPage({ type: "search", value: searchTerm, fuzzy }, response.data);
     } catch (error) {
       console.error("Error searching restaurants:", error);
       setError("Search failed. Please try again.");
@@ -76,7 +145,7 @@ const RestaurantList = () => {
       setLoading(true);
       setError("");
       const response = await restaurantAPI.getRestaurantsByCuisine(cuisine);
-      setRestaurants(response.data);
+      showFirstPage({ type: "cuisine", value: cuisine }, response.data);
     } catch (error) {
       console.error("Error filtering restaurants:", error);
       setError("Filter failed. Please try again.");
@@ -132,8 +201,14 @@ const RestaurantList = () => {
                 className="form-input pl-10"
                 placeholder="Search restaurants by name, cuisine, or location"
                 value={searchTerm}
-                onChange={(e) => setSearchTerm(e.target.value)}
+                onChange={(e) => handleSearchInput(e.target.value)}
+                list="restaurant-suggestions"
               />
+              <datalist id="restaurant-suggestions">
+                {suggestions.map((suggestion) => (
+                  <option key={`${suggestion.type}-${suggestion.text}`} value={suggestion.text} />
+                ))}
+              </datalist>
             </div>
             <button
               type="submit"
@@ -157,7 +232,7 @@ const RestaurantList = () => {
               <option value="">All Cuisines</option>
               {cuisineTypes.map((cuisine) => (
                 <option key={cuisine} value={cuisine}>
-                  {cuisine}
+                  {cuisine} ({cuisineCounts[cuisine.toLowerCase()] || 0})
                 </option>
               ))}
             </select>
@@ -309,6 +384,20 @@ const RestaurantList = () => {
             ))}
           </div>
         )}
+
+        {/* Load More */}
+        {nextCursor && (
+          <div className="text-center mt-10">
+            <button
+              onClick={handleLoadMore}
+              disabled={loadingMore}
+              className="btn-outline px-6 py-2 inline-flex items-center space-x-2"
+            >
+              {loadingMore && <Loader2 className="animate-spin h-4 w-4" />}
+              <span>{loadingMore ? "Loading..." : "Load more"}</span>
+            </button>
+          </div>
+        )}
       </div>
     </div>
   );
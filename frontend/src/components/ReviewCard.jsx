@@ -21,9 +21,11 @@ const ReviewCard = ({
   const [showMenu, setShowMenu] = useState(false);
 
   // Check if current user owns this review
-  const isOwner = isAuthenticated && user && 
+  // Reviews pushed by the event stream carry no email, so they never show as the viewer's own
+  const isOwner = isAuthenticated && user && review.userEmail &&
     review.userEmail.toLowerCase() === user.email.toLowerCase();
-  const canEdit = isOwner && review.canBeEdited;
+  // Checked against the clock at render time; the server only says when the 48 hour window closes
+  const canEdit = isOwner && review.editableUntil && new Date(review.editableUntil) > new Date();
 
   // Helper: prepend backend URL for photo URLs
   const getImageUrl = (photoUrl) => {
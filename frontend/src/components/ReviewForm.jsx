@@ -46,8 +46,10 @@ const ReviewForm = ({ restaurantId, onReviewSubmitted }) => {
       await reviewAPI.createReview(restaurantId, formData);
       onReviewSubmitted();
       setFormData({ content: "", rating: 5, photoUrls: [] });
-    } catch {
-      setError("Submission failed, please try again.");
+    } catch (err) {
+      setError(err.response?.status === 409
+        ? "You have already reviewed this restaurant."
+        : "Submission failed, please try again.");
     } finally {
       setLoading(false);
     }
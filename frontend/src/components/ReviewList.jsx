@@ -4,23 +4,40 @@ import ReviewCard from "./ReviewCard";
 import StarRating from "./StarRAting";
 import { MessageSquare, SortAsc, Loader2, Star, TrendingUp, Award } from 'lucide-react';
 
-const ReviewList = ({ restaurantId }) => {
+const ReviewList = ({ restaurantId, liveEvent }) => {
   const [reviews, setReviews] = useState([]);
   const [loading, setLoading] = useState(true);
   const [error, setError] = useState("");
   const [sortBy, setSortBy] = useState("newest");
   const [showSortMenu, setShowSortMenu] = useState(false);
+  const [nextCursor, setNextCursor] = useState(null);
+  const [loadingMore, setLoadingMore] = useState(false);
 
   useEffect(() => {
     fetchReviews();  // eslint-disable-next-line
   }, [restaurantId]);
 
+  // Apply review events pushed by the server
+  useEffect(() => {
+    if (!liveEvent) return;
+    if (liveEvent.type === "REVIEW_CREATED") {
+      setReviews((prev) =>
+        prev.some((review) => review.id === liveEvent.reviewId) ? prev : [liveEvent.review, ...prev]
+      );
+    } else if (liveEvent.type === "REVIEW_UPDATED") {
+      handleReviewUpdated(liveEvent.review);
+    } else if (liveEvent.type === "REVIEW_DELETED") {
+      handleReviewDeleted(liveEvent.reviewId);
+    } // eslint-disable-next-line
+  }, [liveEvent]);
+
   const fetchReviews = async () => {
     try {
       setLoading(true);
       setError("");
       const response = await reviewAPI.getReviewsByRestaurant(restaurantId);
-      setReviews(response.data);
+      setReviews(response.data.content);
+      setNextCursor(response.data.nextCursor);
     } catch (error) {
       console.error("Error fetching reviews:", error);
       setError("Failed to load reviews.");
@@ -29,6 +46,20 @@ const ReviewList = ({ restaurantId }) => {
     }
   };
 
+  const handleLoadMore = async () => {
+    try {
+      setLoadingMore(true);
+      const response = await reviewAPI.getReviewsByRestaurant(restaurantId, nextCursor);
+      setReviews((prevReviews) => [...prevReviews, ...response.data.content]);
+      setNextCursor(response.data.nextCursor);
+    } catch (error) {
+      console.error("Error loading more reviews:", error);
+      setError("Failed to load more reviews.");
+    } finally {
+      setLoadingMore(false);
+    }
+  };
+
   const handleReviewUpdated = (updatedReview) => {
     setReviews((prevReviews) =>
       prevReviews.map((review) =>
@@ -188,6 +219,20 @@ const ReviewList = ({ restaurantId }) => {
             ))}
           </div>
 
+          {/* Load More */}
+          {nextCursor && (
+            <div className="text-center mt-8">
+              <button
+                onClick={handleLoadMore}
+                disabled={loadingMore}
+                className="btn-outline px-6 py-2 inline-flex items-center space-x-2"
+              >
+                {loadingMore && <Loader2 className="animate-spin h-4 w-4" />}
+                <span>{loadingMore ? "Loading..." : "Load more reviews"}</span>
+              </button>
+            </div>
+          )}
+
           {/* Statistics Footer */}
           <div className="mt-12 pt-8 border-t border-gray-200">
             <div className="grid grid-cols-2 lg:grid-cols-4 gap-6 text-center">
@@ -49,12 +49,23 @@ export const authAPI = {
 // Existing restaurant API (unchanged)
 export const restaurantAPI = {
   createRestaurant: (restaurant) => api.post('/restaurants', restaurant),
-  getAllRestaurants: () => api.get('/restaurants'),
+  // List endpoints are paginated: pass back response.data.nextCursor to get the next page
+  getAllRestaurants: (cursor) => api.get('/restaurants', {
+    params: { cursor }
+  }),
   getRestaurantById: (id) => api.get(`/restaurants/${id}`),
-  searchRestaurants: (searchTerm) => api.get(`/restaurants/search`, {
+  searchRestaurants: (searchTerm, cursor, fuzzy = false) => api.get(`/restaurants/search`, {
+    params: { q: searchTerm, cursor, fuzzy }
+  }),
+  getFacets: (searchTerm) => api.get(`/restaurants/facets`, {
     params: { q: searchTerm }
   }),
-  getRestaurantsByCuisine: (cuisine) => api.get(`/restaurants/cuisine/${cuisine}`),
+  suggest: (prefix) => api.get(`/restaurants/suggest`, {
+    params: { prefix }
+  }),
+  getRestaurantsByCuisine: (cuisine, cursor) => api.get(`/restaurants/cuisine/${cuisine}`, {
+    params: { cursor }
+  }),
   getRestaurantsByCity: (city) => api.get(`/restaurants/city/${city}`),
   updateRestaurant: (id, restaurant) => api.put(`/restaurants/${id}`, restaurant),
   deleteRestaurant: (id) => api.delete(`/restaurants/${id}`),
@@ -84,8 +95,9 @@ export const reviewAPI = {
   createReview: (restaurantId, review) => 
     api.post(`/restaurants/${restaurantId}/reviews`, review),
   
-  getReviewsByRestaurant: (restaurantId) => 
-    api.get(`/restaurants/${restaurantId}/reviews`),
+  // Paginated, newest first: pass back response.data.nextCursor to get the next page
+  getReviewsByRestaurant: (restaurantId, cursor) => 
+    api.get(`/restaurants/${restaurantId}/reviews`, { params: { cursor } }),
   
   getReview: (restaurantId, reviewId) => 
     api.get(`/restaurants/${restaurantId}/reviews/${reviewId}`),
@@ -95,6 +107,15 @@ export const reviewAPI = {
   
   deleteReview: (restaurantId, reviewId) => 
     api.delete(`/restaurants/${restaurantId}/reviews/${reviewId}`),
+
+  // The logged-in user's reviews across all restaurants, paginated like getReviewsByRestaurant
+  getMyReviews: (cursor) =>
+    api.get('/users/me/reviews', { params: { cursor } }),
 };
 
+// Live review and rating events for one restaurant (Server-Sent Events). The browser reconnects on its own;
+// call close() on the returned EventSource when done.
+export const subscribeToRestaurantEvents = (restaurantId) =>
+  new EventSource(`${API_BASE_URL}/restaurants/${restaurantId}/events`);
+
 export default api;